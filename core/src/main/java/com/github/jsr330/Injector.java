@@ -15,15 +15,23 @@
  */
 package com.github.jsr330;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.github.jsr330.analysis.InheritanceAnalyser;
+import com.github.jsr330.analysis.InheritanceGraph;
 import com.github.jsr330.instance.DefaultClassInjector;
 import com.github.jsr330.scanning.DefaultClassScanner;
+import com.github.jsr330.scanning.ScannedClasses;
+import com.github.jsr330.scanning.TypeFactoryRegistry;
 import com.github.jsr330.spi.ClassAnalyser;
 import com.github.jsr330.spi.ClassInjector;
 import com.github.jsr330.spi.ClassScanner;
+import com.github.jsr330.spi.EagerClassInjector;
+import com.github.jsr330.spi.IncrementalClassAnalyser;
+import com.github.jsr330.spi.IncrementalClassInjector;
+import com.github.jsr330.spi.RegistryClassInjector;
 
 /**
  * The Injector is used to instantiate any kind of java object.
@@ -49,11 +57,19 @@ public class Injector {
     /**
      * The classes from the class scanner.
      */
-    protected Map<String, Class<?>> classes;
+    protected volatile Map<String, Class<?>> classes;
     /**
      * The inheritance tree.
      */
-    protected Map<String, Class<?>[]> inheritance;
+    protected volatile Map<String, Class<?>[]> inheritance;
+    /**
+     * Indicates that a {@link TypeFactoryRegistry} covering every root of the class path replaces the scanning and the analysis.
+     */
+    protected boolean registryEnabled = true;
+    /**
+     * Indicates that the singletons are instanced on update instead of on first use - requires an {@link EagerClassInjector}.
+     */
+    protected boolean eagerSingletons;
     
     public Injector() {
         this(Thread.currentThread().getContextClassLoader(), null, null, null);
@@ -79,20 +95,94 @@ public class Injector {
     
     /**
      * Gets an instance of the specified type back.
+     * The inheritance tree is an immutable snapshot of the last update and is shared by all calls.
      */
-    @SuppressWarnings("unchecked")
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public <T> T getInstance(Class<T> type) {
-        Map<String, Class<? extends Object>[]> map = new HashMap<String, Class<? extends Object>[]>(inheritance);
-        return (T) instancer.instance((Class<Object>) type, map, classLoader, null, null);
+        return (T) instancer.instance(type, (Map) inheritance, classLoader, null, null);
     }
     
     /**
      * reruns class scanning, inheritance tree creation and static member initialization.
+     * If every root of the class path has a {@link TypeFactoryRegistry} the classes and the inheritance tree are taken from the registry instead -
+     * a root without one (e.g. a jar not built with the processor) is scanned together with all other roots. The registry is loaded once and
+     * handed over to a {@link RegistryClassInjector} for its generated factories.
+     * If the analyser is an {@link IncrementalClassAnalyser} and the class injector an {@link IncrementalClassInjector} a rescan only patches the
+     * previous inheritance tree with the classes added and removed, and only the static members of the classes added are injected.
+     * If eager singletons are enabled the singletons not instanced yet are instanced afterwards.
      */
+    @SuppressWarnings("unchecked")
     public void update() {
-        classes = scanner.scan(classLoader);
-        inheritance = analyser.analyse(classes);
+        TypeFactoryRegistry registry;
+        Map<String, Class<?>> scanned;
+        Map<String, Class<?>[]> analysed;
+        Map<String, Class<?>> added;
+        Map<String, Class<?>> removed;
+        
+        registry = TypeFactoryRegistry.load(classLoader);
+        if (instancer instanceof RegistryClassInjector) {
+            ((RegistryClassInjector) instancer).setRegistry(registry, classLoader);
+        }
+        
+        if (registryEnabled && registry != null && registry.isComplete(classLoader)) {
+            scanned = registry.getClasses();
+            analysed = registry.getInheritanceTree();
+        } else if (classes != null && inheritance != null && analyser instanceof IncrementalClassAnalyser
+                && instancer instanceof IncrementalClassInjector) {
+            scanned = scanner.scan(classLoader);
+            added = difference(scanned, classes);
+            removed = difference(classes, scanned);
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                publish(scanned, ((IncrementalClassAnalyser<Map<String, Class<?>[]>>) analyser).analyse(inheritance, scanned, added, removed));
+                ((IncrementalClassInjector) instancer).update(classes, inheritance, added, removed, classLoader);
+            }
+            instanceSingletons();
+            return;
+        } else {
+            scanned = scanner.scan(classLoader);
+            analysed = analyser.analyse(scanned);
+        }
+        
+        publish(scanned, analysed);
         instancer.injectStaticMembers(classes, inheritance, classLoader);
+        instanceSingletons();
+    }
+    
+    /**
+     * Instances the singletons up front if enabled and supported by the class injector.
+     */
+    protected void instanceSingletons() {
+        if (eagerSingletons && instancer instanceof EagerClassInjector) {
+            ((EagerClassInjector) instancer).instanceSingletons(classes, inheritance, classLoader);
+        }
+    }
+    
+    /**
+     * Publishes the classes and the inheritance tree as immutable snapshots - {@link ScannedClasses} and an {@link InheritanceGraph} are
+     * immutable already and the ClassInjector may use them directly.
+     */
+    protected void publish(Map<String, Class<?>> scanned, Map<String, Class<?>[]> analysed) {
+        classes = scanned instanceof ScannedClasses ? scanned : Collections.unmodifiableMap(scanned);
+        inheritance = analysed instanceof InheritanceGraph ? analysed : Collections.unmodifiableMap(analysed);
+    }
+    
+    /**
+     * Gets the classes which aren't part of the other classes - a class of the same name loaded again counts as a different one.
+     */
+    protected Map<String, Class<?>> difference(Map<String, Class<?>> classes, Map<String, Class<?>> others) {
+        Map<String, Class<?>> difference = new LinkedHashMap<String, Class<?>>();
+        
+        if (classes == others) {
+            return difference;
+        }
+        
+        for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
+            if (others.get(entry.getKey()) != entry.getValue()) {
+                difference.put(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        return difference;
     }
     
     public ClassLoader getClassLoader() {
@@ -119,6 +209,25 @@ public class Injector {
         this.analyser = analyser;
     }
     
+    public boolean isRegistryEnabled() {
+        return registryEnabled;
+    }
+    
+    public void setRegistryEnabled(boolean registryEnabled) {
+        this.registryEnabled = registryEnabled;
+    }
+    
+    public boolean isEagerSingletons() {
+        return eagerSingletons;
+    }
+    
+    /**
+     * Enables instancing all singletons on {@link #update()}, so the application is warm before it takes requests.
+     */
+    public void setEagerSingletons(boolean eagerSingletons) {
+        this.eagerSingletons = eagerSingletons;
+    }
+    
     public ClassInjector getInstancer() {
         return instancer;
     }
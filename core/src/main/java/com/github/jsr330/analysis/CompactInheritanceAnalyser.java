@@ -0,0 +1,108 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.analysis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This analyser gives back the inheritance tree as {@link InheritanceGraph}, which stores the direct subtype relations between the classes
+ * only instead of an implementation array per type. The content equals the one of the {@link InheritanceAnalyser}.
+ */
+public class CompactInheritanceAnalyser extends InheritanceAnalyser {
+    
+    private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[] {};
+    private static final int INITIAL_EDGES = 1024;
+    
+    @Override
+    public Map<String, Class<?>[]> analyse(Map<String, Class<?>> classes) {
+        Class<?>[] types = classes.values().toArray(EMPTY_CLASS_ARRAY);
+        Map<Class<?>, Integer> ids = new IdentityHashMap<Class<?>, Integer>(types.length);
+        Set<Class<?>> visited = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        Edges edges = new Edges();
+        
+        for (int i = 0; i < types.length; i++) {
+            ids.put(types[i], i);
+        }
+        
+        for (int i = 0; i < types.length; i++) {
+            visited.clear();
+            linkSupertypes(types[i], i, ids, visited, edges);
+        }
+        
+        return new InheritanceGraph(types, edges.sources, edges.targets, edges.size);
+    }
+    
+    /**
+     * Builds a new {@link InheritanceGraph} - the ids of a graph are dense, so it can't be patched. Rebuilding the direct edges is cheap compared
+     * to the candidate arrays of the {@link InheritanceAnalyser}.
+     */
+    @Override
+    public Map<String, Class<?>[]> analyse(Map<String, Class<?>[]> previous, Map<String, Class<?>> classes, Map<String, Class<?>> added,
+            Map<String, Class<?>> removed) {
+        return analyse(classes);
+    }
+    
+    /**
+     * Links the type to its nearest supertypes which are part of the analysed classes - supertypes which aren't are skipped.
+     */
+    protected void linkSupertypes(Class<?> current, int id, Map<Class<?>, Integer> ids, Set<Class<?>> visited, Edges edges) {
+        Class<?> superclass = current.getSuperclass();
+        
+        if (superclass != null) {
+            linkSupertype(superclass, id, ids, visited, edges);
+        }
+        for (Class<?> iface : current.getInterfaces()) {
+            linkSupertype(iface, id, ids, visited, edges);
+        }
+    }
+    
+    private void linkSupertype(Class<?> supertype, int id, Map<Class<?>, Integer> ids, Set<Class<?>> visited, Edges edges) {
+        Integer supertypeId;
+        
+        if (visited.add(supertype)) {
+            if ((supertypeId = ids.get(supertype)) != null) {
+                edges.add(supertypeId, id);
+            } else {
+                linkSupertypes(supertype, id, ids, visited, edges);
+            }
+        }
+    }
+    
+    /**
+     * The growing edge list.
+     */
+    protected static class Edges {
+        
+        int[] sources = new int[INITIAL_EDGES];
+        int[] targets = new int[INITIAL_EDGES];
+        int size;
+        
+        void add(int source, int target) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = source;
+            targets[size++] = target;
+        }
+        
+    }
+    
+}
@@ -17,52 +17,253 @@ package com.github.jsr330.analysis;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.jsr330.spi.ClassAnalyser;
+import com.github.jsr330.scanning.ClassMetadata;
+import com.github.jsr330.scanning.ScannedClasses;
+import com.github.jsr330.spi.IncrementalClassAnalyser;
 
 /**
  * This analyser maps types to their implementations.
  */
-public class InheritanceAnalyser implements ClassAnalyser<Map<String, Class<?>[]>> {
+public class InheritanceAnalyser implements IncrementalClassAnalyser<Map<String, Class<?>[]>> {
     
-    private static final String[] EMPTY_STRING_ARRAY = new String[] {};
     private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[] {};
     private static final Logger LOGGER = LoggerFactory.getLogger(InheritanceAnalyser.class);
     
     /**
-     * Simply maps the interfaces or abstract classes to their implementations.
+     * Maps the interfaces and classes to their implementations. Every implementation walks its superclasses and interfaces once and is appended
+     * to the candidates of each supertype which is one of the classes passed - the candidates keep the order of the classes map.
+     * {@link ScannedClasses} are analysed by their metadata.
      */
     @Override
     public Map<String, Class<?>[]> analyse(Map<String, Class<?>> classes) {
-        Map<String, Class<?>[]> inheritances = new TreeMap<String, Class<?>[]>();
-        List<Class<?>> classList = new ArrayList<Class<?>>();
-        String[] classNames = classes.keySet().toArray(EMPTY_STRING_ARRAY);
+        Class<?>[] types;
+        
+        if (classes instanceof ScannedClasses) {
+            return analyse((ScannedClasses) classes);
+        }
+        
+        types = classes.values().toArray(EMPTY_CLASS_ARRAY);
+        return toInheritances(collectCandidates(classes, types, 0, types.length));
+    }
+    
+    /**
+     * Maps the types to their implementations by the {@link ClassMetadata} of the scanned classes - the same way the classes are walked. The
+     * implementations are loaded on first access of a type of the {@link LazyInheritanceTree} given back.
+     */
+    protected Map<String, Class<?>[]> analyse(ScannedClasses classes) {
+        Map<String, List<String>> candidates = new HashMap<String, List<String>>();
+        Map<String, String[]> names = new HashMap<String, String[]>();
+        Set<String> supertypes = new HashSet<String>();
+        List<String> nameList;
+        
+        for (ClassMetadata classMetadata : classes.getMetadata().values()) {
+            if (classMetadata.isConcrete()) {
+                supertypes.clear();
+                collectSupertypes(classMetadata, classes, supertypes);
+                for (String supertype : supertypes) {
+                    if (classes.containsKey(supertype)) {
+                        if ((nameList = candidates.get(supertype)) == null) {
+                            candidates.put(supertype, nameList = new ArrayList<String>());
+                        }
+                        nameList.add(classMetadata.getName());
+                    }
+                }
+            }
+        }
+        
+        for (Map.Entry<String, List<String>> entry : candidates.entrySet()) {
+            names.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+        }
+        LOGGER.debug("analyse - analysed {} classes by their metadata", classes.size());
+        
+        return new LazyInheritanceTree(names, classes);
+    }
+    
+    /**
+     * Patches the previous inheritance tree: only the candidates of the supertypes of the classes added and removed are recomputed, all other
+     * entries are taken over - including their arrays. The classes analysed before can't be subtypes of the classes added, since they were
+     * loaded before them.
+     */
+    @Override
+    public Map<String, Class<?>[]> analyse(Map<String, Class<?>[]> previous, Map<String, Class<?>> classes, Map<String, Class<?>> added,
+            Map<String, Class<?>> removed) {
+        Map<String, Class<?>[]> inheritances;
+        Class<?>[] types;
+        Map<String, List<Class<?>>> candidates;
+        Set<String> changed;
+        Set<Class<?>> supertypes = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        List<Class<?>> classList;
+        Class<?>[] previousCandidates;
+        
+        // analysing the metadata again is cheaper than loading all implementations of the previous tree
+        if (classes instanceof ScannedClasses) {
+            return analyse((ScannedClasses) classes);
+        }
+        
+        inheritances = new HashMap<String, Class<?>[]>(previous);
+        types = added.values().toArray(EMPTY_CLASS_ARRAY);
+        candidates = collectCandidates(classes, types, 0, types.length);
+        changed = new HashSet<String>(candidates.keySet());
+        for (Class<?> type : removed.values()) {
+            inheritances.remove(type.getName());
+            if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+                supertypes.clear();
+                collectSupertypes(type, supertypes);
+                for (Class<?> supertype : supertypes) {
+                    if (inheritances.containsKey(supertype.getName())) {
+                        changed.add(supertype.getName());
+                    }
+                }
+            }
+        }
+        
+        for (String name : changed) {
+            classList = new ArrayList<Class<?>>();
+            if ((previousCandidates = inheritances.get(name)) != null) {
+                for (Class<?> candidate : previousCandidates) {
+                    if (removed.get(candidate.getName()) != candidate) {
+                        classList.add(candidate);
+                    }
+                }
+            }
+            if (candidates.containsKey(name)) {
+                classList.addAll(candidates.get(name));
+            }
+            
+            if (classList.isEmpty()) {
+                inheritances.remove(name);
+            } else {
+                candidates.put(name, classList);
+            }
+        }
+        
+        sortCandidates(classes, candidates);
+        for (Map.Entry<String, List<Class<?>>> entry : candidates.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                inheritances.put(entry.getKey(), entry.getValue().toArray(EMPTY_CLASS_ARRAY));
+            }
+        }
+        LOGGER.debug("analyse - patched {} of {} types", changed.size(), inheritances.size());
+        
+        return inheritances;
+    }
+    
+    /**
+     * Sorts the patched candidates the way {@link #analyse(Map)} orders them - by the order of the classes map.
+     */
+    protected void sortCandidates(Map<String, Class<?>> classes, Map<String, List<Class<?>>> candidates) {
+        final Map<Class<?>, Integer> positions = new IdentityHashMap<Class<?>, Integer>();
+        int position = 0;
+        
+        for (List<Class<?>> classList : candidates.values()) {
+            for (Class<?> type : classList) {
+                positions.put(type, Integer.MAX_VALUE);
+            }
+        }
+        for (Class<?> type : classes.values()) {
+            if (positions.containsKey(type)) {
+                positions.put(type, position);
+            }
+            position++;
+        }
+        
+        for (List<Class<?>> classList : candidates.values()) {
+            Collections.sort(classList, new Comparator<Class<?>>() {
+                
+                @Override
+                public int compare(Class<?> first, Class<?> second) {
+                    return positions.get(first).compareTo(positions.get(second));
+                }
+                
+            });
+        }
+    }
+    
+    /**
+     * Collects the candidates of the supertypes for the implementations within {@code types[from]} and {@code types[to - 1]}.
+     */
+    protected Map<String, List<Class<?>>> collectCandidates(Map<String, Class<?>> classes, Class<?>[] types, int from, int to) {
+        Map<String, List<Class<?>>> candidates = new HashMap<String, List<Class<?>>>();
+        Set<Class<?>> supertypes = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        List<Class<?>> classList;
         Class<?> type;
         
-        for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
-            classList.clear();
-            LOGGER.debug("analyse - looking for {}", entry.getKey());
-            for (String className : classNames) {
-                if (!entry.getKey().equals(className)) {
-                    type = classes.get(className);
-                    if (entry.getValue().isAssignableFrom(type) && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+        for (int i = from; i < to; i++) {
+            type = types[i];
+            if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+                supertypes.clear();
+                collectSupertypes(type, supertypes);
+                for (Class<?> supertype : supertypes) {
+                    if (classes.get(supertype.getName()) == supertype) {
+                        if ((classList = candidates.get(supertype.getName())) == null) {
+                            candidates.put(supertype.getName(), classList = new ArrayList<Class<?>>());
+                        }
                         classList.add(type);
-                        LOGGER.debug("analyse - found {}", type);
+                        LOGGER.debug("analyse - found {} for {}", type, supertype);
                     }
                 }
             }
-            if (!classList.isEmpty()) {
-                inheritances.put(entry.getKey(), classList.toArray(EMPTY_CLASS_ARRAY));
-            }
+        }
+        
+        return candidates;
+    }
+    
+    /**
+     * Converts the candidate lists to the inheritance tree.
+     */
+    protected Map<String, Class<?>[]> toInheritances(Map<String, List<Class<?>>> candidates) {
+        Map<String, Class<?>[]> inheritances = new HashMap<String, Class<?>[]>();
+        
+        for (Map.Entry<String, List<Class<?>>> entry : candidates.entrySet()) {
+            inheritances.put(entry.getKey(), entry.getValue().toArray(EMPTY_CLASS_ARRAY));
         }
         
         return inheritances;
     }
     
+    /**
+     * Collects the names of the superclasses and all (inherited) interfaces by their metadata - without the type itself.
+     */
+    protected void collectSupertypes(ClassMetadata classMetadata, ScannedClasses classes, Set<String> supertypes) {
+        ClassMetadata supertype;
+        
+        if (classMetadata.getSuperName() != null && supertypes.add(classMetadata.getSuperName())
+                && (supertype = classes.readMetadata(classMetadata.getSuperName())) != null) {
+            collectSupertypes(supertype, classes, supertypes);
+        }
+        for (String iface : classMetadata.getInterfaceNames()) {
+            if (supertypes.add(iface) && (supertype = classes.readMetadata(iface)) != null) {
+                collectSupertypes(supertype, classes, supertypes);
+            }
+        }
+    }
+    
+    /**
+     * Collects the superclasses and all (inherited) interfaces of the type - without the type itself.
+     */
+    protected void collectSupertypes(Class<?> type, Set<Class<?>> supertypes) {
+        Class<?> superclass = type.getSuperclass();
+        
+        if (superclass != null && supertypes.add(superclass)) {
+            collectSupertypes(superclass, supertypes);
+        }
+        for (Class<?> iface : type.getInterfaces()) {
+            if (supertypes.add(iface)) {
+                collectSupertypes(iface, supertypes);
+            }
+        }
+    }
+    
 }
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.analysis;
+
+import java.lang.reflect.Modifier;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A compact, immutable inheritance tree. The classes get dense int ids (in the order of the classes map) and only the direct subtypes of each
+ * type are stored in two int arrays (compressed sparse rows): the direct subtypes of type {@code id} are {@code targets[offsets[id]]} to
+ * {@code targets[offsets[id + 1] - 1]}. Names are mapped to ids by an open addressing hash table.
+ * The implementations of a type are collected from its subtypes when they're asked for the first time and kept, so repeated lookups give the
+ * same array. They're ordered by id like the candidates of the {@link InheritanceAnalyser}.
+ */
+public class InheritanceGraph extends AbstractMap<String, Class<?>[]> {
+    
+    protected final Class<?>[] types;
+    protected final int[] offsets;
+    protected final int[] targets;
+    protected final int[] table;
+    protected final BitSet implementations = new BitSet();
+    protected final BitSet supertypes = new BitSet();
+    protected final ConcurrentMap<Integer, Class<?>[]> candidates = new ConcurrentHashMap<Integer, Class<?>[]>();
+    
+    /**
+     * Creates the graph of the edges {@code sources[i] -> targets[i]} (type id to id of a direct subtype).
+     */
+    public InheritanceGraph(Class<?>[] types, int[] sources, int[] targets, int edges) {
+        int[] positions;
+        
+        this.types = types;
+        this.offsets = new int[types.length + 1];
+        this.targets = new int[edges];
+        // a load factor of at most 0.75
+        this.table = new int[Integer.highestOneBit(Math.max(2, types.length + types.length / 3 + 1) - 1) << 1];
+        
+        for (int i = 0; i < edges; i++) {
+            offsets[sources[i] + 1]++;
+        }
+        for (int id = 0; id < types.length; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        positions = offsets.clone();
+        for (int i = 0; i < edges; i++) {
+            this.targets[positions[sources[i]]++] = targets[i];
+        }
+        
+        for (int id = 0; id < types.length; id++) {
+            insert(id);
+            if (!types[id].isInterface() && !Modifier.isAbstract(types[id].getModifiers())) {
+                implementations.set(id);
+            }
+        }
+        markSupertypes();
+    }
+    
+    /**
+     * Gets the id of the class name or {@code -1}.
+     */
+    public int indexOf(String name) {
+        int mask = table.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        int entry;
+        
+        while ((entry = table[slot]) != 0) {
+            if (types[entry - 1].getName().equals(name)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Gets the id of the class or {@code -1} if the graph contains no or another class of that name.
+     */
+    public int indexOf(Class<?> type) {
+        int id = indexOf(type.getName());
+        
+        return id >= 0 && types[id] == type ? id : -1;
+    }
+    
+    public int getTypeCount() {
+        return types.length;
+    }
+    
+    public Class<?> getType(int id) {
+        return types[id];
+    }
+    
+    public int getSubtypeCount(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+    
+    /**
+     * Gets the id of the {@code index}th direct subtype of the type.
+     */
+    public int getSubtypeId(int id, int index) {
+        return targets[offsets[id] + index];
+    }
+    
+    /**
+     * Gets the implementations of the type or {@code null} if there are none.
+     */
+    public Class<?>[] getCandidates(int id) {
+        Class<?>[] result, existing;
+        BitSet found;
+        
+        if (!supertypes.get(id)) {
+            return null;
+        }
+        
+        if ((result = candidates.get(id)) == null) {
+            found = new BitSet(types.length);
+            collectImplementations(id, found, new BitSet(types.length));
+            result = new Class<?>[found.cardinality()];
+            for (int i = 0, next = found.nextSetBit(0); next >= 0; i++, next = found.nextSetBit(next + 1)) {
+                result[i] = types[next];
+            }
+            if ((existing = candidates.putIfAbsent(id, result)) != null) {
+                result = existing;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Gets the implementations of the class or {@code null} if there are none - classes of the same name loaded by another class loader have
+     * none.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Class<? extends T>[] getCandidates(Class<T> type) {
+        int id = indexOf(type);
+        
+        return id < 0 ? null : (Class<? extends T>[]) getCandidates(id);
+    }
+    
+    @Override
+    public Class<?>[] get(Object key) {
+        int id = key instanceof String ? indexOf((String) key) : -1;
+        
+        return id < 0 ? null : getCandidates(id);
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        int id = key instanceof String ? indexOf((String) key) : -1;
+        
+        return id >= 0 && supertypes.get(id);
+    }
+    
+    @Override
+    public int size() {
+        return supertypes.cardinality();
+    }
+    
+    @Override
+    public Set<Map.Entry<String, Class<?>[]>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Class<?>[]>>() {
+            
+            @Override
+            public Iterator<Map.Entry<String, Class<?>[]>> iterator() {
+                return new EntryIterator();
+            }
+            
+            @Override
+            public int size() {
+                return supertypes.cardinality();
+            }
+            
+        };
+    }
+    
+    private void collectImplementations(int id, BitSet found, BitSet visited) {
+        int subtype;
+        
+        for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+            if (!visited.get(subtype = targets[i])) {
+                visited.set(subtype);
+                if (implementations.get(subtype)) {
+                    found.set(subtype);
+                }
+                collectImplementations(subtype, found, visited);
+            }
+        }
+    }
+    
+    /**
+     * Marks the types having at least one implementation - each type is visited once.
+     */
+    private void markSupertypes() {
+        BitSet visited = new BitSet(types.length);
+        
+        for (int id = 0; id < types.length; id++) {
+            markSupertypes(id, visited);
+        }
+    }
+    
+    private boolean markSupertypes(int id, BitSet visited) {
+        int subtype;
+        
+        if (!visited.get(id)) {
+            visited.set(id);
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                subtype = targets[i];
+                if (markSupertypes(subtype, visited) | implementations.get(subtype)) {
+                    supertypes.set(id);
+                }
+            }
+        }
+        
+        return supertypes.get(id);
+    }
+    
+    private void insert(int id) {
+        int mask = table.length - 1;
+        int slot = spread(types[id].getName().hashCode()) & mask;
+        
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+    
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * Iterates the types having implementations in id order.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, Class<?>[]>> {
+        
+        private int next = supertypes.nextSetBit(0);
+        
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+        
+        @Override
+        public Map.Entry<String, Class<?>[]> next() {
+            int id = next;
+            
+            if (id < 0) {
+                throw new NoSuchElementException();
+            }
+            next = supertypes.nextSetBit(id + 1);
+            
+            return new SimpleImmutableEntry<String, Class<?>[]>(types[id].getName(), getCandidates(id));
+        }
+        
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+        
+    }
+    
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.analysis;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable inheritance tree which knows the names of the implementations only - the implementations of a type are loaded on first access
+ * of the type and are cached afterwards, so every access gives back the same array. Implementations which can't be loaded are left out.
+ */
+public class LazyInheritanceTree extends AbstractMap<String, Class<?>[]> {
+    
+    private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[] {};
+    
+    /**
+     * The names of the implementations by type name.
+     */
+    protected Map<String, String[]> names;
+    /**
+     * The classes to load the implementations from.
+     */
+    protected Map<String, Class<?>> classes;
+    protected ConcurrentMap<String, Class<?>[]> candidates = new ConcurrentHashMap<String, Class<?>[]>();
+    
+    public LazyInheritanceTree(Map<String, String[]> names, Map<String, Class<?>> classes) {
+        this.names = names;
+        this.classes = classes;
+    }
+    
+    /**
+     * Gets the names of the implementations of the type without loading them.
+     */
+    public String[] getCandidateNames(String name) {
+        return names.get(name);
+    }
+    
+    @Override
+    public Class<?>[] get(Object key) {
+        Class<?>[] types = candidates.get(key);
+        Class<?>[] existing;
+        String[] candidateNames;
+        List<Class<?>> list;
+        Class<?> type;
+        
+        if (types == null && (candidateNames = names.get(key)) != null) {
+            list = new ArrayList<Class<?>>(candidateNames.length);
+            for (String name : candidateNames) {
+                if ((type = classes.get(name)) != null) {
+                    list.add(type);
+                }
+            }
+            
+            if ((existing = candidates.putIfAbsent((String) key, types = list.toArray(EMPTY_CLASS_ARRAY))) != null) {
+                types = existing;
+            }
+        }
+        
+        return types;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return names.containsKey(key);
+    }
+    
+    @Override
+    public int size() {
+        return names.size();
+    }
+    
+    /**
+     * Iterating the entries loads all implementations.
+     */
+    @Override
+    public Set<Map.Entry<String, Class<?>[]>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Class<?>[]>>() {
+            
+            @Override
+            public Iterator<Map.Entry<String, Class<?>[]>> iterator() {
+                final Iterator<String> keys = names.keySet().iterator();
+                
+                return new Iterator<Map.Entry<String, Class<?>[]>>() {
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+                    
+                    @Override
+                    public Map.Entry<String, Class<?>[]> next() {
+                        String key = keys.next();
+                        
+                        return new AbstractMap.SimpleImmutableEntry<String, Class<?>[]>(key, get(key));
+                    }
+                    
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                    
+                };
+            }
+            
+            @Override
+            public int size() {
+                return names.size();
+            }
+            
+        };
+    }
+    
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.analysis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.github.jsr330.scanning.ScannedClasses;
+
+/**
+ * This analyser splits the classes into partitions which are analysed in a {@link ForkJoinPool}. The partial results are merged in partition
+ * order, so the candidates keep the order of the classes map just like the sequential {@link InheritanceAnalyser}.
+ */
+public class ParallelInheritanceAnalyser extends InheritanceAnalyser {
+    
+    public static final int DEFAULT_PARTITION_SIZE = 512;
+    private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[] {};
+    
+    protected ForkJoinPool pool;
+    protected int partitionSize;
+    
+    /**
+     * Uses the {@link #getSharedPool() shared pool}.
+     */
+    public ParallelInheritanceAnalyser() {
+        this(getSharedPool(), DEFAULT_PARTITION_SIZE);
+    }
+    
+    public ParallelInheritanceAnalyser(ForkJoinPool pool) {
+        this(pool, DEFAULT_PARTITION_SIZE);
+    }
+    
+    public ParallelInheritanceAnalyser(ForkJoinPool pool, int partitionSize) {
+        this.pool = pool;
+        this.partitionSize = Math.max(1, partitionSize);
+    }
+    
+    /**
+     * Gets the pool shared by all analysers created without one - it's created on first use and its worker threads are daemons, so it
+     * needs no shutdown.
+     */
+    public static ForkJoinPool getSharedPool() {
+        return SharedPool.POOL;
+    }
+    
+    /**
+     * Analyses the partitions in parallel - {@link ScannedClasses} are analysed by their metadata.
+     */
+    @Override
+    public Map<String, Class<?>[]> analyse(Map<String, Class<?>> classes) {
+        Class<?>[] types;
+        
+        if (classes instanceof ScannedClasses) {
+            return analyse((ScannedClasses) classes);
+        }
+        
+        types = classes.values().toArray(EMPTY_CLASS_ARRAY);
+        return toInheritances(pool.invoke(new AnalysisTask(classes, types, 0, types.length)));
+    }
+    
+    /**
+     * Appends the candidates of the following partition - its lists aren't shared, so they can be taken over.
+     */
+    protected void merge(Map<String, List<Class<?>>> candidates, Map<String, List<Class<?>>> following) {
+        List<Class<?>> classList;
+        
+        for (Map.Entry<String, List<Class<?>>> entry : following.entrySet()) {
+            if ((classList = candidates.get(entry.getKey())) == null) {
+                candidates.put(entry.getKey(), entry.getValue());
+            } else {
+                classList.addAll(entry.getValue());
+            }
+        }
+    }
+    
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+    
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Holds the shared pool, so it isn't created before it's needed.
+     */
+    private static class SharedPool {
+        
+        static final ForkJoinPool POOL = new ForkJoinPool();
+        
+    }
+    
+    /**
+     * Analyses a range of the classes - large ranges are split in halves.
+     */
+    protected class AnalysisTask extends RecursiveTask<Map<String, List<Class<?>>>> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final Map<String, Class<?>> classes;
+        private final Class<?>[] types;
+        private final int from;
+        private final int to;
+        
+        public AnalysisTask(Map<String, Class<?>> classes, Class<?>[] types, int from, int to) {
+            this.classes = classes;
+            this.types = types;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Map<String, List<Class<?>>> compute() {
+            AnalysisTask first, second;
+            Map<String, List<Class<?>>> candidates;
+            int middle;
+            
+            if (to - from <= partitionSize) {
+                return collectCandidates(classes, types, from, to);
+            }
+            
+            middle = (from + to) >>> 1;
+            first = new AnalysisTask(classes, types, from, middle);
+            second = new AnalysisTask(classes, types, middle, to);
+            second.fork();
+            candidates = first.compute();
+            merge(candidates, second.join());
+            
+            return candidates;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.util.Map;
+
+import com.github.jsr330.spi.TypeConfig;
+import com.github.jsr330.spi.TypeDeterminator;
+
+/**
+ * This ClassInjector works like the {@link MethodHandleClassInjector} but fuses the {@link InjectionPlan} of a type into a single
+ * {@link java.lang.invoke.MethodHandle} once the type was instanced {@link #getThreshold()} times.
+ * Hot prototypes are then created by one handle invocation instead of one invocation per member, while rarely used types don't pay for
+ * fusing. The fused handle is held by the plan, so the JIT doesn't inline it into the caller.
+ */
+public class AdaptiveClassInjector extends MethodHandleClassInjector {
+    
+    public static final int DEFAULT_THRESHOLD = 1000;
+    
+    protected int threshold = DEFAULT_THRESHOLD;
+    
+    public AdaptiveClassInjector() {
+    }
+    
+    public AdaptiveClassInjector(int threshold) {
+        this.threshold = threshold;
+    }
+    
+    public AdaptiveClassInjector(TypeConfig config) {
+        super(config);
+    }
+    
+    public AdaptiveClassInjector(TypeDeterminator typeDeterminator) {
+        super(typeDeterminator);
+    }
+    
+    public AdaptiveClassInjector(TypeConfig config, TypeDeterminator typeDeterminator) {
+        super(config, typeDeterminator);
+    }
+    
+    public AdaptiveClassInjector(TypeConfig config, TypeDeterminator typeDeterminator, int threshold) {
+        super(config, typeDeterminator);
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Compiles the plan and wraps it into an {@link AdaptiveInjectionPlan} - plans of generated factories are already plain code.
+     */
+    @Override
+    protected <T> InjectionPlan compileInjectionPlan(TypeContainer typeContainer, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader) {
+        InjectionPlan plan = super.compileInjectionPlan(typeContainer, inheritanceTree, classLoader);
+        
+        if (plan == null || plan instanceof FactoryInjectionPlan) {
+            return plan;
+        }
+        
+        return new AdaptiveInjectionPlan(plan, threshold);
+    }
+    
+    public int getThreshold() {
+        return threshold;
+    }
+    
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+    
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.spi.ClassInjector;
+
+/**
+ * An {@link InjectionPlan} that counts its executions and fuses itself into a single {@link MethodHandle} once the threshold is reached.
+ * The fused handle resolves the dependencies, creates the bean and injects the members without building argument arrays
+ * - it is shaped like a hand-written factory {@code inject(new Impl(dep1.get(), dep2.get()))}, but is invoked through a field and not
+ * inlined like one.
+ * A plan is fused only if all of its invokers are {@link MethodHandleInstantiator}s and {@link MethodHandleInjectionPoint}s.
+ */
+public class AdaptiveInjectionPlan extends InjectionPlan {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveInjectionPlan.class);
+    private static final Class<?>[] RESOLVE_PARAMETERS = new Class<?>[] { ClassInjector.class, Map.class, ClassLoader.class };
+    private static final MethodHandle RESOLVE;
+    private static final MethodHandle LOG_ERROR;
+    
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        
+        try {
+            RESOLVE = lookup.findVirtual(Dependency.class, "resolve", MethodType.methodType(Object.class, RESOLVE_PARAMETERS));
+            LOG_ERROR = lookup.findStatic(AdaptiveInjectionPlan.class, "logError", MethodType.methodType(void.class, Exception.class));
+        } catch (Exception exception) {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+    
+    /**
+     * The number of executions after which the plan is fused.
+     */
+    protected int threshold;
+    /**
+     * The executions so far - not counted any longer once the plan is fused or known to be un-fusable.
+     */
+    protected AtomicInteger executions = new AtomicInteger();
+    /**
+     * Indicates that fusing the plan failed - it's executed as is from then on.
+     */
+    protected volatile boolean unfusable;
+    /**
+     * The fused plan of type {@code (ClassInjector, Map, ClassLoader)Object} - {@code null} until the threshold is reached.
+     */
+    protected volatile MethodHandle factory;
+    
+    public AdaptiveInjectionPlan(InjectionPlan plan, int threshold) {
+        super(plan.getType(), plan.isSingleton(), plan.getInstantiator(), plan.getArguments(), plan.getInjectionPoints());
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Executes the fused handle if available - otherwise the plan itself. A plan which can't be fused isn't counted any longer.
+     */
+    @Override
+    public Object instance(ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) throws Exception {
+        MethodHandle handle = factory;
+        
+        if (handle == null) {
+            if (unfusable || executions.incrementAndGet() != threshold) {
+                return super.instance(injector, inheritanceTree, classLoader);
+            }
+            if ((handle = fuse()) == null) {
+                LOGGER.debug("instance - plan for {} can't be fused", type);
+                unfusable = true;
+                return super.instance(injector, inheritanceTree, classLoader);
+            }
+            LOGGER.debug("instance - fused plan for {}", type);
+            factory = handle;
+        }
+        
+        try {
+            return (Object) handle.invokeExact(injector, inheritanceTree, classLoader);
+        } catch (Throwable throwable) {
+            throw MethodHandleClassInjector.propagate(throwable);
+        }
+    }
+    
+    /**
+     * Fuses the plan to a handle of type {@code (ClassInjector, Map, ClassLoader)Object} or gives back {@code null} if the plan can't be fused.
+     */
+    protected MethodHandle fuse() {
+        MethodHandle handle, member;
+        MethodType type;
+        int count;
+        int[] reorder;
+        
+        if (!(instantiator instanceof MethodHandleInstantiator)) {
+            return null;
+        }
+        
+        // (ClassInjector, Map, ClassLoader, Object)Object - gives back the bean after all members are injected
+        handle = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 0, RESOLVE_PARAMETERS);
+        for (int i = injectionPoints.length - 1; i >= 0; i--) {
+            if (!(injectionPoints[i] instanceof MethodHandleInjectionPoint)) {
+                return null;
+            }
+            
+            // move the bean behind the values: (Object, Object...)void to (Object..., Object)void
+            member = ((MethodHandleInjectionPoint) injectionPoints[i]).getHandle();
+            count = member.type().parameterCount();
+            type = MethodType.genericMethodType(count).changeReturnType(void.class);
+            reorder = new int[count];
+            reorder[0] = count - 1;
+            for (int j = 1; j < count; j++) {
+                reorder[j] = j - 1;
+            }
+            member = MethodHandles.permuteArguments(member, type, reorder);
+            member = bind(member, injectionPoints[i].getDependencies());
+            member = MethodHandles.catchException(member, Exception.class, MethodHandles.dropArguments(LOG_ERROR, 1, member.type().parameterList()));
+            handle = MethodHandles.foldArguments(handle, member);
+        }
+        
+        // (Object, ClassInjector, Map, ClassLoader)Object folded with the instantiation
+        handle = MethodHandles.permuteArguments(handle, MethodType.methodType(Object.class, Object.class, RESOLVE_PARAMETERS), 1, 2, 3, 0);
+        return MethodHandles.foldArguments(handle, bind(((MethodHandleInstantiator) instantiator).getHandle(), arguments));
+    }
+    
+    /**
+     * Replaces the leading value parameters of the target by the resolution of the dependencies.
+     * The target {@code (v1 ... vn, extra...)} becomes {@code (ClassInjector, Map, ClassLoader, extra...)} - the values are resolved in order.
+     */
+    protected static MethodHandle bind(MethodHandle target, Dependency[] dependencies) {
+        MethodHandle handle = MethodHandles.dropArguments(target, 0, RESOLVE_PARAMETERS);
+        Class<?>[] parameters;
+        int[] reorder;
+        int count, value;
+        
+        // the handle has the form (ClassInjector, Map, ClassLoader, v1 ... vi, extra...)
+        for (int i = dependencies.length; i > 0; i--) {
+            count = handle.type().parameterCount();
+            value = RESOLVE_PARAMETERS.length + i - 1;
+            parameters = new Class<?>[count];
+            reorder = new int[count];
+            
+            // move vi to the front: (vi, ClassInjector, Map, ClassLoader, v1 ... vi-1, extra...)
+            parameters[0] = handle.type().parameterType(value);
+            reorder[value] = 0;
+            for (int j = 0; j < count; j++) {
+                if (j < value) {
+                    parameters[j + 1] = handle.type().parameterType(j);
+                    reorder[j] = j + 1;
+                } else if (j > value) {
+                    parameters[j] = handle.type().parameterType(j);
+                    reorder[j] = j;
+                }
+            }
+            
+            handle = MethodHandles.permuteArguments(handle, MethodType.methodType(handle.type().returnType(), parameters), reorder);
+            handle = MethodHandles.foldArguments(handle, RESOLVE.bindTo(dependencies[i - 1]));
+        }
+        
+        return handle;
+    }
+    
+    /**
+     * Logs an error while injecting a member of a fused plan - a {@link DependencyCycleException} is rethrown.
+     */
+    @SuppressWarnings("unused")
+    private static void logError(Exception exception) {
+        if (exception instanceof DependencyCycleException) {
+            throw (DependencyCycleException) exception;
+        }
+        LOGGER.debug("error while injecting member", exception);
+    }
+    
+    public int getThreshold() {
+        return threshold;
+    }
+    
+    public boolean isFused() {
+        return factory != null;
+    }
+    
+    public boolean isUnfusable() {
+        return unfusable;
+    }
+    
+}
@@ -23,36 +23,104 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Qualifier;
+import javax.inject.Singleton;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.jsr330.analysis.InheritanceGraph;
 import com.github.jsr330.instance.TypeContainer.InstanceMode;
+import com.github.jsr330.scanning.ClassMetadata;
+import com.github.jsr330.scanning.ScannedClasses;
+import com.github.jsr330.scanning.TypeFactoryRegistry;
 import com.github.jsr330.spi.ClassInjector;
+import com.github.jsr330.spi.EagerClassInjector;
+import com.github.jsr330.spi.IncrementalClassInjector;
+import com.github.jsr330.spi.RegistryClassInjector;
 import com.github.jsr330.spi.TypeConfig;
 import com.github.jsr330.spi.TypeDeterminator;
+import com.github.jsr330.spi.TypeFactory;
 
 /**
  * This ClassInjector instances type with respect to the {@link TypeConfig} and the {@link TypeDeterminator} assigned.
+ * It may be used by many threads at once: the caches are read without locking and the injection plan of a type is compiled while holding a
+ * lock for that type only. Singletons are created exactly once by their {@link SingletonHolder}.
+ * The caches are keyed by class identity, so classes of the same name loaded by different class loaders are kept apart.
  */
-public class DefaultClassInjector implements ClassInjector {
+public class DefaultClassInjector implements IncrementalClassInjector, EagerClassInjector, RegistryClassInjector {
     
     private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[] {};
+    private static final Dependency[] EMPTY_DEPENDENCY_ARRAY = new Dependency[] {};
+    private static final InjectionPoint[] EMPTY_INJECTIONPOINT_ARRAY = new InjectionPoint[] {};
+    private static final InjectionSet[] EMPTY_INJECTIONSET_ARRAY = new InjectionSet[] {};
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultClassInjector.class);
     
-    protected Map<String, Provider<?>> providers = new TreeMap<String, Provider<?>>();
-    protected Map<String, Object> singletons = new TreeMap<String, Object>();
+    protected ConcurrentMap<Class<?>, Provider<?>> providers = new ConcurrentHashMap<Class<?>, Provider<?>>();
+    protected ClassValue<SingletonHolder> singletons = new ClassValue<SingletonHolder>() {
+        
+        @Override
+        protected SingletonHolder computeValue(Class<?> type) {
+            return new SingletonHolder();
+        }
+        
+    };
+    protected ClassValue<Boolean> staticInjection = new ClassValue<Boolean>() {
+        
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isStaticallyInjected(type);
+        }
+        
+    };
     protected TypeDeterminator typeDeterminator = new DefaultTypeDeterminator();
-    protected Map<String, TypeContainer> types = new TreeMap<String, TypeContainer>();
+    protected ConcurrentMap<Class<?>, TypeContainer> types = new ConcurrentHashMap<Class<?>, TypeContainer>();
+    protected ConcurrentMap<Class<?>, InjectionPlan> plans = new ConcurrentHashMap<Class<?>, InjectionPlan>();
+    protected ConcurrentMap<Class<?>, Lock> locks = new ConcurrentHashMap<Class<?>, Lock>();
+    protected ConcurrentMap<Class<?>, Resolution[]> resolutions = new ConcurrentHashMap<Class<?>, Resolution[]>();
+    protected volatile Map<String, TypeFactory<?>> factories = new TreeMap<String, TypeFactory<?>>();
+    /**
+     * The registry handed over for the next reload of the factories and the class loader it belongs to.
+     */
+    protected TypeFactoryRegistry registry;
+    protected ClassLoader registryLoader;
     protected TypeConfig config;
+    protected ForkJoinPool pool;
+    protected volatile DependencyGraph dependencyGraph = new DependencyGraph(EMPTY_CLASS_ARRAY, new int[0][]);
+    /**
+     * Replaced whenever plans are dropped - the targets cached by the {@link Dependency}s of an older generation are resolved again.
+     */
+    protected volatile Object generation = new Object();
+    /**
+     * The types being created on the current thread in creation order.
+     */
+    protected ThreadLocal<Set<Class<?>>> constructing = new ThreadLocal<Set<Class<?>>>() {
+        
+        @Override
+        protected Set<Class<?>> initialValue() {
+            return new LinkedHashSet<Class<?>>();
+        }
+        
+    };
     
     public DefaultClassInjector() {
     }
@@ -75,38 +143,494 @@ public class DefaultClassInjector implements ClassInjector {
         this.config = config;
     }
     
+    @Override
+    public void setRegistry(TypeFactoryRegistry registry, ClassLoader classLoader) {
+        this.registry = registry;
+        registryLoader = classLoader;
+    }
+    
     /**
-     * Injects the static members in inheritance order.
+     * Injects the static members in inheritance order. Only the classes with static injection points are investigated, of
+     * {@link ScannedClasses} only those are loaded.
      */
-    @SuppressWarnings("unchecked")
     @Override
     public void injectStaticMembers(Map<String, Class<?>> classes, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        // the plans and the resolutions depend on the previous inheritance tree
+        plans.clear();
+        resolutions.clear();
+        generation = new Object();
+        dependencyGraph = new DependencyGraph(EMPTY_CLASS_ARRAY, new int[0][]);
+        factories = loadTypeFactories(classLoader);
+        
+        injectStaticMembers(getStaticallyInjected(classes, classes), inheritanceTree, classLoader);
+    }
+    
+    /**
+     * Drops the plans, the resolutions and the caches which depend on the classes added or removed and injects the static members of the
+     * classes added. A resolution depends on a class if the class is a subtype of the type resolved, a plan if one of its dependencies does.
+     */
+    @Override
+    public void update(Map<String, Class<?>> classes, Map<String, Class<?>[]> inheritanceTree, Map<String, Class<?>> added,
+            Map<String, Class<?>> removed, ClassLoader classLoader) {
+        Set<Class<?>> affected = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        InjectionPlan plan;
+        
+        collectAffectedTypes(added, classes, affected);
+        collectAffectedTypes(removed, classes, affected);
+        
+        for (Iterator<InjectionPlan> iterator = plans.values().iterator(); iterator.hasNext();) {
+            plan = iterator.next();
+            if (affected.contains(plan.getType()) || isAffected(plan.getArguments(), affected)) {
+                iterator.remove();
+            } else {
+                for (InjectionPoint injectionPoint : plan.getInjectionPoints()) {
+                    if (isAffected(injectionPoint.getDependencies(), affected)) {
+                        iterator.remove();
+                        break;
+                    }
+                }
+            }
+        }
+        for (Class<?> type : affected) {
+            resolutions.remove(type);
+        }
+        for (Class<?> type : removed.values()) {
+            types.remove(type);
+            locks.remove(type);
+            providers.remove(type);
+            singletons.remove(type);
+        }
+        generation = new Object();
+        dependencyGraph = new DependencyGraph(EMPTY_CLASS_ARRAY, new int[0][]);
+        factories = loadTypeFactories(classLoader);
+        LOGGER.debug("update - {} types affected by {} added and {} removed classes", new Object[] { affected.size(), added.size(), removed.size() });
+        
+        injectStaticMembers(getStaticallyInjected(added, classes), inheritanceTree, classLoader);
+    }
+    
+    /**
+     * Gets the types with static injection points.
+     */
+    protected List<Class<?>> getStaticallyInjected(Map<String, Class<?>> types, Map<String, Class<?>> classes) {
+        List<Class<?>> injected = new ArrayList<Class<?>>();
+        
+        for (Map.Entry<String, Class<?>> type : types.entrySet()) {
+            if (hasStaticInjection(classes, type.getKey())) {
+                injected.add(type.getValue());
+            }
+        }
+        
+        return injected;
+    }
+    
+    /**
+     * Injects the static members of the types - in a {@link StaticMembersTask} if a {@link ForkJoinPool} is assigned.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected void injectStaticMembers(List<Class<?>> types, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        if (pool == null) {
+            for (Class<?> type : types) {
+                injectStaticMembers((Class<Object>) type, (Map) inheritanceTree, classLoader);
+            }
+        } else if (!types.isEmpty()) {
+            pool.invoke(new StaticMembersTask(null, false, groupBySuperclass(types), inheritanceTree, classLoader));
+        }
+    }
+    
+    /**
+     * Groups the types by their nearest superclass among them - the types without one are grouped under {@code null}. The static members of a
+     * superclass have to be injected before the ones of its subclasses.
+     */
+    protected Map<Class<?>, List<Class<?>>> groupBySuperclass(List<Class<?>> types) {
+        Map<Class<?>, List<Class<?>>> groups = new IdentityHashMap<Class<?>, List<Class<?>>>();
+        Set<Class<?>> members = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        List<Class<?>> group;
+        Class<?> superclass;
+        
+        members.addAll(types);
+        for (Class<?> type : types) {
+            superclass = type.getSuperclass();
+            while (superclass != null && !members.contains(superclass)) {
+                superclass = superclass.getSuperclass();
+            }
+            if ((group = groups.get(superclass)) == null) {
+                groups.put(superclass, group = new ArrayList<Class<?>>());
+            }
+            group.add(type);
+        }
+        
+        return groups;
+    }
+    
+    /**
+     * Indicates that the class has static injection points. {@link ScannedClasses} tell by their metadata without loading the class, other
+     * classes by a look at their declared members - the {@link TypeContainer} is generated for the classes with static injection points only.
+     */
+    protected boolean hasStaticInjection(Map<String, Class<?>> classes, String name) {
+        Class<?> type;
+        
+        if (classes instanceof ScannedClasses) {
+            return ((ScannedClasses) classes).hasStaticInjection(name);
+        }
+        
+        return (type = classes.get(name)) != null && staticInjection.get(type);
+    }
+    
+    /**
+     * Indicates that a static field or method of the type or of one of its superclasses is annotated with {@link Inject}. A type which members
+     * can't be read counts as injected, so the {@link TypeContainer} reports the error.
+     */
+    protected boolean isStaticallyInjected(Class<?> type) {
+        try {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) && field.isAnnotationPresent(Inject.class)) {
+                        return true;
+                    }
+                }
+                for (Method method : current.getDeclaredMethods()) {
+                    if (Modifier.isStatic(method.getModifiers()) && method.isAnnotationPresent(Inject.class)) {
+                        return true;
+                    }
+                }
+            }
+        } catch (Throwable exception) {
+            LOGGER.debug("error while reading members", exception);
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Collects the types and their supertypes which are known classes.
+     */
+    protected void collectAffectedTypes(Map<String, Class<?>> types, Map<String, Class<?>> classes, Set<Class<?>> affected) {
+        List<Class<?>> stack = new ArrayList<Class<?>>(types.values());
+        Set<Class<?>> visited = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        Class<?> type;
+        
+        affected.addAll(stack);
+        while (!stack.isEmpty()) {
+            if (visited.add(type = stack.remove(stack.size() - 1))) {
+                if (type.getSuperclass() != null) {
+                    stack.add(type.getSuperclass());
+                }
+                for (Class<?> iface : type.getInterfaces()) {
+                    stack.add(iface);
+                }
+                if (classes.get(type.getName()) == type) {
+                    affected.add(type);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Checks whether one of the dependencies may be resolved differently since an affected type is a supertype of it.
+     */
+    protected boolean isAffected(Dependency[] dependencies, Set<Class<?>> affected) {
+        for (Dependency dependency : dependencies) {
+            if (dependency.getType() == null) {
+                return true;
+            }
+            for (Class<?> type : affected) {
+                if (type.isAssignableFrom(dependency.getType())) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Injects the static members of the specified type - a type whose members refer to classes which can't be loaded is skipped.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected <T> void injectStaticMembers(Class<T> type, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader) {
         TypeContainer typeContainer;
-        Map<String, Class<? extends Object>[]> castedInheritanceTree = new HashMap<String, Class<? extends Object>[]>(inheritanceTree);
         
-        for (Map.Entry<String, Class<?>> type : classes.entrySet()) {
-            typeContainer = generateTypeContainer((Class<Object>) type.getValue(), castedInheritanceTree, null, classLoader);
-            for (InjectionSet set : typeContainer.getInjectionSets()) {
-                injectStaticFields(set, (Object) null, castedInheritanceTree, classLoader);
-                injectStaticMethods(set, (Object) null, castedInheritanceTree, classLoader);
+        try {
+            typeContainer = generateTypeContainer(type, inheritanceTree, null, classLoader);
+        } catch (LinkageError error) {
+            // e.g. a class of the class path referring to a library which isn't there
+            LOGGER.debug("error while investigating type", error);
+            return;
+        }
+        if (typeContainer == null) {
+            return;
+        }
+        if (typeContainer.getInstanceMode() == InstanceMode.TYPE_FACTORY && typeContainer.getTypeFactory() != null) {
+            try {
+                typeContainer.getTypeFactory().injectStaticMembers(this, (Map) inheritanceTree, classLoader);
+            } catch (Exception exception) {
+                LOGGER.debug("error while injecting static members", exception);
             }
         }
+        for (InjectionSet set : typeContainer.getInjectionSets()) {
+            injectStaticFields(set, (Object) null, inheritanceTree, classLoader);
+            injectStaticMethods(set, (Object) null, inheritanceTree, classLoader);
+        }
+    }
+    
+    /**
+     * Injects the static members declared by the specified type only - the ones of its superclasses are left out. A type created by a
+     * generated {@link TypeFactory} is investigated by reflection instead, since the factory injects the static members of the entire hierarchy.
+     */
+    protected <T> void injectDeclaredStaticMembers(Class<T> type, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader) {
+        TypeContainer typeContainer = generateTypeContainer(type, inheritanceTree, null, classLoader);
+        
+        if (typeContainer == null) {
+            return;
+        }
+        if (typeContainer.getInstanceMode() == InstanceMode.TYPE_FACTORY) {
+            typeContainer = new TypeContainer(type, null);
+            typeContainer.gatherInformation();
+        }
+        for (InjectionSet set : typeContainer.getInjectionSets()) {
+            if (set.getType() == type) {
+                injectStaticFields(set, (Object) null, inheritanceTree, classLoader);
+                injectStaticMethods(set, (Object) null, inheritanceTree, classLoader);
+            }
+        }
+    }
+    
+    /**
+     * Instances the singletons level by level of their depth in the {@link DependencyGraph}, so the singletons of a level only depend on the ones
+     * of the levels before. The singletons of a level are instanced in parallel if a {@link ForkJoinPool} is assigned. Singletons which are part
+     * of a dependency cycle or depend on one are left out - asking for a class of a cycle fails afterwards.
+     * The classes annotated with {@link Singleton} are considered - if a {@link TypeConfig} is assigned all concrete classes are, since the
+     * config may declare any of them a singleton.
+     */
+    @Override
+    public void instanceSingletons(Map<String, Class<?>> classes, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        Set<Class<?>> singletons = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        List<Class<?>> level;
+        DependencyGraph graph;
+        
+        singletons.addAll(getSingletons(classes, inheritanceTree, classLoader));
+        dependencyGraph = graph = createDependencyGraph(singletons, inheritanceTree, classLoader);
+        for (Class<?> singleton : singletons) {
+            if (graph.getDepth(singleton) < 0) {
+                LOGGER.debug("instanceSingletons - {} is part of or depends on the dependency cycle {}", singleton, graph.getComponent(singleton));
+            }
+        }
+        
+        for (List<Class<?>> types : graph.getLevels()) {
+            level = new ArrayList<Class<?>>();
+            for (Class<?> tmp : types) {
+                if (singletons.contains(tmp)) {
+                    level.add(tmp);
+                }
+            }
+            
+            if (pool == null) {
+                for (Class<?> singleton : level) {
+                    instanceSingleton(singleton, inheritanceTree, classLoader);
+                }
+            } else if (!level.isEmpty()) {
+                pool.invoke(new SingletonsTask(level, inheritanceTree, classLoader));
+            }
+        }
+    }
+    
+    /**
+     * Gets the singletons of the classes - the plans of the candidates are compiled. Classes which can't be linked are left out.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected List<Class<?>> getSingletons(Map<String, Class<?>> classes, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        List<Class<?>> singletons = new ArrayList<Class<?>>();
+        InjectionPlan plan;
+        Class<?> type;
+        
+        for (String name : classes.keySet()) {
+            try {
+                if (isSingletonCandidate(classes, name) && (type = classes.get(name)) != null
+                        && (plan = getInjectionPlan(type, (Map) inheritanceTree, null, classLoader)) != null && plan.isSingleton()) {
+                    singletons.add(type);
+                }
+            } catch (LinkageError error) {
+                LOGGER.debug("error while investigating type", error);
+            }
+        }
+        
+        return singletons;
+    }
+    
+    /**
+     * Builds the {@link DependencyGraph} of the types and all classes they depend on - the plans of these classes are compiled.
+     */
+    public DependencyGraph createDependencyGraph(Collection<Class<?>> types, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        Map<Class<?>, Integer> ids = new IdentityHashMap<Class<?>, Integer>();
+        List<Class<?>> nodes = new ArrayList<Class<?>>();
+        List<int[]> edges = new ArrayList<int[]>();
+        List<Class<?>> dependencies;
+        int[] targets;
+        Integer id;
+        
+        for (Class<?> type : types) {
+            if (!ids.containsKey(type)) {
+                ids.put(type, nodes.size());
+                nodes.add(type);
+            }
+        }
+        // the list of nodes grows while it's traversed
+        for (int i = 0; i < nodes.size(); i++) {
+            try {
+                dependencies = getDependencyClasses(nodes.get(i), inheritanceTree, classLoader);
+            } catch (LinkageError error) {
+                LOGGER.debug("error while investigating type", error);
+                dependencies = Collections.emptyList();
+            }
+            targets = new int[dependencies.size()];
+            for (int j = 0; j < targets.length; j++) {
+                if ((id = ids.get(dependencies.get(j))) == null) {
+                    ids.put(dependencies.get(j), id = nodes.size());
+                    nodes.add(dependencies.get(j));
+                }
+                targets[j] = id;
+            }
+            edges.add(targets);
+        }
+        
+        return new DependencyGraph(nodes.toArray(EMPTY_CLASS_ARRAY), edges.toArray(new int[edges.size()][]));
+    }
+    
+    /**
+     * Gets the classes the type depends on by its {@link InjectionPlan} - each class once.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected List<Class<?>> getDependencyClasses(Class<?> type, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        Set<Class<?>> dependencies = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        InjectionPlan plan = getInjectionPlan(type, (Map) inheritanceTree, null, classLoader);
+        List<Dependency> all = new ArrayList<Dependency>();
+        Class<?> dependencyClass;
+        
+        if (plan != null) {
+            all.addAll(Arrays.asList(plan.getArguments()));
+            for (InjectionPoint injectionPoint : plan.getInjectionPoints()) {
+                all.addAll(Arrays.asList(injectionPoint.getDependencies()));
+            }
+        }
+        for (Dependency dependency : all) {
+            if ((dependencyClass = getDependencyClass(dependency, inheritanceTree, classLoader)) != null && dependencies.add(dependencyClass)) {
+                classes.add(dependencyClass);
+            }
+        }
+        
+        return classes;
+    }
+    
+    /**
+     * Indicates that the class may be a singleton - {@link ScannedClasses} tell by their metadata without loading the class.
+     */
+    protected boolean isSingletonCandidate(Map<String, Class<?>> classes, String name) {
+        ClassMetadata classMetadata;
+        Class<?> type;
+        
+        if (classes instanceof ScannedClasses && (classMetadata = ((ScannedClasses) classes).getMetadata(name)) != null) {
+            return classMetadata.isConcrete() && (config != null || classMetadata.isAnnotationPresent(Singleton.class));
+        }
+        
+        return (type = classes.get(name)) != null && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())
+                && (config != null || type.isAnnotationPresent(Singleton.class));
+    }
+    
+    /**
+     * Instances the singleton of the type unless it's instanced already.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected void instanceSingleton(Class<?> type, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        InjectionPlan plan = getInjectionPlan(type, (Map) inheritanceTree, null, classLoader);
+        
+        if (plan != null) {
+            try {
+                getSingletonHolder(type).get(plan, this, inheritanceTree, classLoader);
+            } catch (Exception exception) {
+                LOGGER.debug("error while instancing singleton", exception);
+            }
+        }
+    }
+    
+    /**
+     * Gets the class a dependency is instanced of the way {@link #instance(Class, Map, ClassLoader, Class[], Annotation)} determines it - or
+     * {@code null} if it's a provider or no class can be determined.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Class<?> getDependencyClass(Dependency dependency, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        Class<?> type = dependency.getType();
+        Class<?>[] candidates;
+        
+        if (type == null || type.isAssignableFrom(Provider.class)) {
+            return null;
+        }
+        
+        type = determineClass((Class) type, getCandidates(type, (Map) inheritanceTree), dependency.getQualifier(), classLoader);
+        if (type != null && (type.isInterface() || Modifier.isAbstract(type.getModifiers()))) {
+            candidates = getCandidates(type, (Map) inheritanceTree);
+            type = candidates != null && candidates.length == 1 ? candidates[0] : null;
+        }
+        
+        return type;
+    }
+    
+    /**
+     * Gets the plan the dependency is resolved to the way {@link #instance(Class, Map, ClassLoader, Class[], Annotation)} resolves it - or
+     * {@code null} if the dependency is a provider, can't be resolved to a single class or is part of a dependency cycle. The generation is
+     * read before the plan, so a plan dropped meanwhile yields a stale target.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Dependency.Target getTarget(Dependency dependency, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        Object current = generation;
+        Class<?> type = dependency.getType();
+        Class<?>[] candidates;
+        InjectionPlan plan;
+        
+        if (type == null || type.isAssignableFrom(Provider.class)) {
+            return null;
+        }
+        
+        type = determineClass((Class) type, getCandidates(type, (Map) inheritanceTree), dependency.getQualifier(), classLoader);
+        if (type != null && (type.isInterface() || Modifier.isAbstract(type.getModifiers()))) {
+            candidates = getCandidates(type, (Map) inheritanceTree);
+            if (candidates == null || candidates.length != 1) {
+                return null;
+            }
+            type = determineClass((Class) candidates[0], getCandidates(candidates[0], (Map) inheritanceTree), dependency.getQualifier(), classLoader);
+        }
+        
+        if (type == null || type.isInterface() || Modifier.isAbstract(type.getModifiers()) || dependencyGraph.isCyclic(type)
+                || (plan = getInjectionPlan(type, (Map) inheritanceTree, dependency.getQualifier(), classLoader)) == null) {
+            return null;
+        }
+        
+        return new Dependency.Target(this, current, type, plan, plan.isSingleton() ? getSingletonHolder(type) : null);
+    }
+    
+    /**
+     * Indicates that the target was resolved by this injector since the last update.
+     */
+    protected boolean isCurrent(Dependency.Target target) {
+        return target.injector == this && target.generation == generation;
     }
     
     /**
      * Instances the specified type.
      * If a provider is wanted a {@link SimpleProvider} is returned with the corresponding generic as type.
      * If the type is declared a singleton an already instanced bean of that type is returned.
-     * Otherwise the whole injection stack will be processed.
+     * Otherwise the {@link InjectionPlan} of the type is executed - it's compiled once on first use. A type the last {@link DependencyGraph}
+     * found in a dependency cycle is rejected, so is a type asked for while it's being created on the same thread.
      * This method caches it's results.
      */
     @Override
-    @SuppressWarnings("unchecked")
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public <T> T instance(Class<T> type, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader, Class<?>[] generics, Annotation qualifier) {
         T inst = null;
         Provider<T> provider;
         Class<? extends T>[] candidates;
-        TypeContainer typeContainer;
+        InjectionPlan plan;
         
         LOGGER.debug("instance - gets instance for {} with generics {}", type, generics);
         
@@ -118,16 +642,16 @@ public class DefaultClassInjector implements ClassInjector {
             return (T) provider;
         }
         
-        candidates = inheritanceTree.get(type.getName());
-        type = typeDeterminator.determineClass(type, candidates, qualifier, classLoader);
+        candidates = getCandidates(type, inheritanceTree);
+        type = determineClass(type, candidates, qualifier, classLoader);
         LOGGER.debug("instance - got type {} due to annotations", type);
         
-        if (singletons.containsKey(type.getName())) {
-            LOGGER.debug("instance - deliver singleton {}", singletons.get(type.getName()));
-            return (T) singletons.get(type.getName());
+        if ((inst = (T) singletons.get(type).get()) != null) {
+            LOGGER.debug("instance - deliver singleton {}", inst);
+            return inst;
         } else {
             if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
-                candidates = inheritanceTree.get(type.getName());
+                candidates = getCandidates(type, inheritanceTree);
                 if (candidates != null && candidates.length > 0) {
                     if (candidates.length == 1) {
                         inst = instance((Class<T>) candidates[0], inheritanceTree, classLoader, null, qualifier);
@@ -138,28 +662,14 @@ public class DefaultClassInjector implements ClassInjector {
                     inst = instance(type, inheritanceTree, classLoader, null, qualifier);
                 }
             } else {
-                if ((typeContainer = types.get(type.getName())) == null) {
-                    typeContainer = generateTypeContainer(type, inheritanceTree, qualifier, classLoader);
+                if (dependencyGraph.isCyclic(type)) {
+                    throw new DependencyCycleException(dependencyGraph.getComponent(type));
                 }
-                
-                if (typeContainer != null
-                        && (typeContainer.getInstanceMode() == InstanceMode.CONSTRUCTOR && typeContainer.getConstructor() != null
-                                || typeContainer.getInstanceMode() == InstanceMode.FACTORY_METHOD && typeContainer.getFactoryMethod() != null || typeContainer
-                                .getInstanceMode() == InstanceMode.PROVIDER && typeContainer.getProvider() != null)) {
+                if ((plan = getInjectionPlan(type, inheritanceTree, qualifier, classLoader)) != null) {
                     try {
-                        if (typeContainer.getInstanceMode() == InstanceMode.FACTORY_METHOD && typeContainer.getFactoryMethod() != null) {
-                            inst = (T) typeContainer.getFactoryMethod().invoke(null,
-                                    getArguments(typeContainer.getFactoryMethod(), inheritanceTree, classLoader));
-                        } else if (typeContainer.getInstanceMode() == InstanceMode.PROVIDER && typeContainer.getProvider() != null) {
-                            inst = (T) typeContainer.getProvider().get();
-                        } else {
-                            inst = (T) typeContainer.getConstructor().newInstance(getArguments(typeContainer.getConstructor(), inheritanceTree, classLoader));
-                        }
-                        injectTypeContainer(typeContainer, inst, inheritanceTree, classLoader);
-                        
-                        if (typeContainer.isSingleton() && !singletons.containsKey(type.getName())) {
-                            singletons.put(type.getName(), inst);
-                        }
+                        inst = (T) execute(type, plan, plan.isSingleton() ? getSingletonHolder(type) : null, (Map) inheritanceTree, classLoader);
+                    } catch (DependencyCycleException exception) {
+                        throw exception;
                     } catch (Exception exception) {
                         LOGGER.debug("error while instancing type", exception);
                     }
@@ -171,15 +681,193 @@ public class DefaultClassInjector implements ClassInjector {
     }
     
     /**
-     * Gets the {@link TypeContainer} for the specified type. Asking the {@link TypeConfig} assigned before the entire investigation stack will be processed.
+     * Executes the plan of the type or gets the singleton of the holder if it exists. The types whose plans execute on the current thread are
+     * tracked, so a type asked for by its own plan fails with a {@link DependencyCycleException} instead of overflowing the stack.
+     */
+    protected Object execute(Class<?> type, InjectionPlan plan, SingletonHolder holder, Map<String, Class<?>[]> inheritanceTree,
+            ClassLoader classLoader) throws Exception {
+        Object inst;
+        
+        if (holder != null && (inst = holder.get()) != null) {
+            return inst;
+        }
+        
+        enter(type);
+        try {
+            return holder != null ? holder.get(plan, this, inheritanceTree, classLoader) : plan.instance(this, inheritanceTree, classLoader);
+        } finally {
+            exit(type);
+        }
+    }
+    
+    /**
+     * Marks the type as being created on the current thread - fails if it's already.
+     */
+    protected void enter(Class<?> type) {
+        Set<Class<?>> types = constructing.get();
+        List<Class<?>> cycle;
+        boolean found = false;
+        
+        if (!types.add(type)) {
+            cycle = new ArrayList<Class<?>>();
+            for (Class<?> tmp : types) {
+                if (found |= tmp == type) {
+                    cycle.add(tmp);
+                }
+            }
+            cycle.add(type);
+            throw new DependencyCycleException(cycle);
+        }
+    }
+    
+    /**
+     * Marks the type as created.
+     */
+    protected void exit(Class<?> type) {
+        constructing.get().remove(type);
+    }
+    
+    /**
+     * Gets the implementations of the type - an {@link InheritanceGraph} is asked by class, so classes of the same name from another class loader
+     * don't match.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> Class<? extends T>[] getCandidates(Class<?> type, Map<String, Class<? extends T>[]> inheritanceTree) {
+        Object tree = inheritanceTree;
+        
+        if (tree instanceof InheritanceGraph) {
+            return (Class<? extends T>[]) ((InheritanceGraph) tree).getCandidates(type);
+        }
+        
+        return inheritanceTree.get(type.getName());
+    }
+    
+    /**
+     * Asks the {@link TypeDeterminator} for the implementation to instance. The answers are cached by type, candidates, qualifier and class loader
+     * until the next {@link #injectStaticMembers(Map, Map, ClassLoader)} or until an {@link #update(Map, Map, Map, Map, ClassLoader)} affects the type.
+     * The answers of a type are kept in a small array, so a cached answer is found without allocating a key or hashing the qualifier.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> Class<T> determineClass(Class<T> type, Class<? extends T>[] candidates, Annotation qualifier, ClassLoader classLoader) {
+        Resolution[] cached = resolutions.get(type);
+        Resolution resolution;
+        Class<T> cls;
+        
+        if (cached != null && (resolution = Resolution.find(cached, candidates, qualifier, classLoader)) != null) {
+            return (Class<T>) resolution.getResolvedClass();
+        }
+        
+        if ((cls = typeDeterminator.determineClass(type, candidates, qualifier, classLoader)) != null) {
+            addResolution(type, new Resolution(candidates, qualifier, classLoader, cls));
+        }
+        
+        return cls;
+    }
+    
+    /**
+     * Adds the resolution to the ones of the type - it replaces the resolution of the same qualifier built for other candidates or another
+     * class loader.
+     */
+    protected void addResolution(Class<?> type, Resolution resolution) {
+        List<Resolution> list;
+        Resolution[] cached;
+        
+        while (true) {
+            if ((cached = resolutions.get(type)) == null) {
+                if (resolutions.putIfAbsent(type, new Resolution[] { resolution }) == null) {
+                    return;
+                }
+            } else {
+                list = new ArrayList<Resolution>(cached.length + 1);
+                for (Resolution tmp : cached) {
+                    if (!tmp.isReplacedBy(resolution)) {
+                        list.add(tmp);
+                    }
+                }
+                list.add(resolution);
+                
+                if (resolutions.replace(type, cached, list.toArray(new Resolution[list.size()]))) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the cached {@link InjectionPlan} of the type or generates the {@link TypeContainer} and compiles the plan.
+     * Threads asking for the same uncached type wait for the first one, threads asking for other types aren't blocked.
+     */
+    protected <T> InjectionPlan getInjectionPlan(Class<T> type, Map<String, Class<? extends T>[]> inheritanceTree, Annotation qualifier,
+            ClassLoader classLoader) {
+        InjectionPlan plan = plans.get(type);
+        TypeContainer typeContainer;
+        Lock lock;
+        
+        if (plan == null) {
+            lock = getLock(type);
+            lock.lock();
+            try {
+                if ((plan = plans.get(type)) == null) {
+                    if ((typeContainer = types.get(type)) == null) {
+                        typeContainer = generateTypeContainer(type, inheritanceTree, qualifier, classLoader);
+                    }
+                    
+                    if ((plan = compileInjectionPlan(typeContainer, inheritanceTree, classLoader)) != null) {
+                        plans.put(type, plan);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        return plan;
+    }
+    
+    /**
+     * Gets the lock guarding the compilation for the specified type. The lock is reentrant, so a {@link TypeConfig} may ask for the type
+     * being compiled.
+     */
+    protected Lock getLock(Class<?> type) {
+        Lock lock = locks.get(type);
+        Lock existing;
+        
+        if (lock == null && (existing = locks.putIfAbsent(type, lock = new ReentrantLock())) != null) {
+            lock = existing;
+        }
+        
+        return lock;
+    }
+    
+    /**
+     * Gets the {@link SingletonHolder} of the specified type - all threads get the same holder.
+     */
+    protected SingletonHolder getSingletonHolder(Class<?> type) {
+        return singletons.get(type);
+    }
+    
+    /**
+     * Gets the {@link TypeContainer} for the specified type. Asking the {@link TypeConfig} assigned and the generated {@link TypeFactory}s before the
+     * entire investigation stack will be processed.
      */
     protected <T> TypeContainer generateTypeContainer(Class<T> type, Map<String, Class<? extends T>[]> inheritanceTree, Annotation qualifier,
             ClassLoader classLoader) {
         Constructor<?> ctor;
+        TypeFactory<?> typeFactory;
         TypeContainer typeContainer = null;
         
         if (type != null) {
-            if (config == null || (typeContainer = config.getTypeContainer(this, type, inheritanceTree, qualifier, classLoader)) == null) {
+            if (config != null) {
+                typeContainer = config.getTypeContainer(this, type, inheritanceTree, qualifier, classLoader);
+            }
+            
+            if (typeContainer == null && (typeFactory = factories.get(type.getName())) != null && typeFactory.getType() == type) {
+                typeContainer = new TypeContainer(type, null);
+                typeContainer.setInjectionSets(EMPTY_INJECTIONSET_ARRAY);
+                typeContainer.setSingleton(typeFactory.isSingleton());
+                typeContainer.setInstanceMode(InstanceMode.TYPE_FACTORY);
+                typeContainer.setTypeFactory(typeFactory);
+            } else if (typeContainer == null) {
                 ctor = getInjectableConstructor(type);
                 if (ctor == null) {
                     ctor = getDefaultConstructor(type);
@@ -188,12 +876,153 @@ public class DefaultClassInjector implements ClassInjector {
                 typeContainer = new TypeContainer(type, ctor);
                 typeContainer.gatherInformation();
             }
-            types.put(type.getName(), typeContainer);
+            types.put(type, typeContainer);
         }
         
         return typeContainer;
     }
     
+    /**
+     * Compiles the {@link TypeContainer} to an {@link InjectionPlan}: the instantiation and all non-static fields and methods are resolved once.
+     * Returns {@code null} if the type container doesn't provide a way to instance the bean.
+     */
+    protected <T> InjectionPlan compileInjectionPlan(TypeContainer typeContainer, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader) {
+        Instantiator instantiator;
+        Dependency[] arguments;
+        Dependency dependency;
+        List<InjectionPoint> injectionPoints = new ArrayList<InjectionPoint>();
+        
+        if (typeContainer == null) {
+            return null;
+        }
+        
+        if (typeContainer.getInstanceMode() == InstanceMode.TYPE_FACTORY && typeContainer.getTypeFactory() != null) {
+            return new FactoryInjectionPlan(typeContainer.getTypeFactory());
+        }
+        
+        if (typeContainer.getInstanceMode() == InstanceMode.FACTORY_METHOD && typeContainer.getFactoryMethod() != null) {
+            instantiator = createFactoryMethodInstantiator(typeContainer.getFactoryMethod());
+            arguments = getDependencies(typeContainer.getFactoryMethod(), inheritanceTree, classLoader);
+        } else if (typeContainer.getInstanceMode() == InstanceMode.PROVIDER && typeContainer.getProvider() != null) {
+            instantiator = createProviderInstantiator(typeContainer.getProvider());
+            arguments = EMPTY_DEPENDENCY_ARRAY;
+        } else if (typeContainer.getInstanceMode() == InstanceMode.CONSTRUCTOR && typeContainer.getConstructor() != null) {
+            instantiator = createConstructorInstantiator(typeContainer.getConstructor());
+            arguments = getDependencies(typeContainer.getConstructor(), inheritanceTree, classLoader);
+        } else {
+            return null;
+        }
+        
+        if (typeContainer.getInjectionSets() != null) {
+            for (InjectionSet set : typeContainer.getInjectionSets()) {
+                for (Field field : set.getFields()) {
+                    if ((dependency = getDependency(field, inheritanceTree, classLoader)) != null) {
+                        injectionPoints.add(createFieldInjectionPoint(field, dependency));
+                    }
+                }
+                for (Method method : set.getMethods()) {
+                    injectionPoints.add(createMethodInjectionPoint(method, getDependencies(method, inheritanceTree, classLoader)));
+                }
+            }
+        }
+        
+        LOGGER.debug("compileInjectionPlan - compiled plan for {}", typeContainer.getType());
+        return new InjectionPlan(typeContainer.getType(), typeContainer.isSingleton(), instantiator, arguments,
+                injectionPoints.toArray(EMPTY_INJECTIONPOINT_ARRAY));
+    }
+    
+    /**
+     * Creates the instantiator invoking the constructor.
+     */
+    protected Instantiator createConstructorInstantiator(final Constructor<?> constructor) {
+        return new Instantiator() {
+            
+            @Override
+            public Object instance(Object[] arguments) throws Exception {
+                return constructor.newInstance(arguments);
+            }
+            
+        };
+    }
+    
+    /**
+     * Creates the instantiator invoking the static factory method.
+     */
+    protected Instantiator createFactoryMethodInstantiator(final Method factoryMethod) {
+        return new Instantiator() {
+            
+            @Override
+            public Object instance(Object[] arguments) throws Exception {
+                return factoryMethod.invoke(null, arguments);
+            }
+            
+        };
+    }
+    
+    /**
+     * Creates the instantiator asking the provider.
+     */
+    protected Instantiator createProviderInstantiator(final Provider<?> provider) {
+        return new Instantiator() {
+            
+            @Override
+            public Object instance(Object[] arguments) throws Exception {
+                return provider.get();
+            }
+            
+        };
+    }
+    
+    /**
+     * Creates the injection point setting the field.
+     */
+    protected InjectionPoint createFieldInjectionPoint(final Field field, Dependency dependency) {
+        return new InjectionPoint(field, new Dependency[] { dependency }) {
+            
+            @Override
+            public void inject(Object inst, Object[] values) throws Exception {
+                field.set(inst, values[0]);
+            }
+            
+        };
+    }
+    
+    /**
+     * Creates the injection point invoking the method.
+     */
+    protected InjectionPoint createMethodInjectionPoint(final Method method, Dependency[] dependencies) {
+        return new InjectionPoint(method, dependencies) {
+            
+            @Override
+            public void inject(Object inst, Object[] values) throws Exception {
+                method.invoke(inst, values);
+            }
+            
+        };
+    }
+    
+    /**
+     * Gets the generated {@link TypeFactory}s registered for the class loader. A registry handed over for the class loader is used once,
+     * otherwise the registry is loaded.
+     */
+    protected Map<String, TypeFactory<?>> loadTypeFactories(ClassLoader classLoader) {
+        TypeFactoryRegistry registry;
+        
+        if (registryLoader != null && registryLoader == classLoader) {
+            registry = this.registry;
+        } else {
+            registry = TypeFactoryRegistry.load(classLoader);
+        }
+        this.registry = null;
+        registryLoader = null;
+        
+        if (registry == null) {
+            return new TreeMap<String, TypeFactory<?>>();
+        }
+        
+        return registry.getFactories();
+    }
+    
     /**
      * Do the entire non-static injection of the bean.
      */
@@ -242,9 +1071,9 @@ public class DefaultClassInjector implements ClassInjector {
                     }
                     
                     if (objectType != null) {
-                        candidates = inheritanceTree.get(objectType.getName());
+                        candidates = getCandidates(objectType, inheritanceTree);
                         qualifier = getQualifier(field.getAnnotations());
-                        objectType = typeDeterminator.determineClass(objectType, candidates, qualifier, classLoader);
+                        objectType = determineClass(objectType, candidates, qualifier, classLoader);
                         field.set(inst, instance(objectType, inheritanceTree, classLoader, generics, qualifier));
                     }
                 } else if (field.getGenericType() instanceof Class) {
@@ -328,9 +1157,9 @@ public class DefaultClassInjector implements ClassInjector {
                     genericTypes = getGenericTypes((ParameterizedType) generics[index]);
                 }
                 
-                candidates = inheritanceTree.get(parameterType.getName());
+                candidates = getCandidates(parameterType, inheritanceTree);
                 qualifier = getQualifier(annotations[index]);
-                cls = typeDeterminator.determineClass((Class<T>) parameterType, (Class<? extends T>[]) candidates, qualifier, classLoader);
+                cls = determineClass((Class<T>) parameterType, (Class<? extends T>[]) candidates, qualifier, classLoader);
                 arguments[index] = instance(cls, inheritanceTree, classLoader, genericTypes, qualifier);
                 index++;
             }
@@ -339,6 +1168,70 @@ public class DefaultClassInjector implements ClassInjector {
         return arguments;
     }
     
+    /**
+     * Gets the dependency of the field or {@code null} if the type of the field can't be injected.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> Dependency getDependency(Field field, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader) {
+        ParameterizedType parameterizedType;
+        Class<T> objectType;
+        Annotation qualifier;
+        
+        if (field.getGenericType() instanceof ParameterizedType) {
+            parameterizedType = (ParameterizedType) field.getGenericType();
+            if (parameterizedType.getRawType() instanceof Class) {
+                objectType = (Class<T>) parameterizedType.getRawType();
+                qualifier = getQualifier(field.getAnnotations());
+                objectType = determineClass(objectType, getCandidates(objectType, inheritanceTree), qualifier, classLoader);
+                return new Dependency(objectType, getGenericTypes(parameterizedType), qualifier);
+            }
+        } else if (field.getGenericType() instanceof Class) {
+            return new Dependency((Class<?>) field.getGenericType(), null, getQualifier(field.getAnnotations()));
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Gets the dependencies of the method parameters.
+     */
+    protected <T> Dependency[] getDependencies(Method method, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader) {
+        return getDependencies(inheritanceTree, method.getParameterTypes(), method.getGenericParameterTypes(), method.getParameterAnnotations(), classLoader);
+    }
+    
+    /**
+     * Gets the dependencies of the constructor parameters.
+     */
+    protected <T> Dependency[] getDependencies(Constructor<?> ctor, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader) {
+        return getDependencies(inheritanceTree, ctor.getParameterTypes(), ctor.getGenericParameterTypes(), ctor.getParameterAnnotations(), classLoader);
+    }
+    
+    /**
+     * Gets the dependencies of the method / constructor parameters - the same way {@link #getArguments(Map, Class[], Type[], Annotation[][], ClassLoader)}
+     * resolves the arguments but without instancing them.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> Dependency[] getDependencies(Map<String, Class<? extends T>[]> inheritanceTree, Class<?>[] parameters, Type[] generics,
+            Annotation[][] annotations, ClassLoader classLoader) {
+        Dependency[] dependencies = new Dependency[parameters.length];
+        Class<?>[] genericTypes;
+        Annotation qualifier;
+        Class<T> cls;
+        
+        for (int index = 0; index < parameters.length; index++) {
+            genericTypes = null;
+            if (ParameterizedType.class.isAssignableFrom(generics[index].getClass())) {
+                genericTypes = getGenericTypes((ParameterizedType) generics[index]);
+            }
+            
+            qualifier = getQualifier(annotations[index]);
+            cls = determineClass((Class<T>) parameters[index], getCandidates(parameters[index], inheritanceTree), qualifier, classLoader);
+            dependencies[index] = new Dependency(cls, genericTypes, qualifier);
+        }
+        
+        return dependencies;
+    }
+    
     /**
      * Gets the annotation that is assignable from {@link Qualifier}.
      */
@@ -407,6 +1300,24 @@ public class DefaultClassInjector implements ClassInjector {
         return list.toArray(EMPTY_CLASS_ARRAY);
     }
     
+    /**
+     * Gets the {@link DependencyGraph} of the last {@link #instanceSingletons(Map, Map, ClassLoader)} - it's empty after an update.
+     */
+    public DependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+    
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+    
+    /**
+     * Assigns the pool injecting the static members - the classes of different inheritance branches are injected in parallel then.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
     public TypeDeterminator getTypeDeterminator() {
         return typeDeterminator;
     }
@@ -415,4 +1326,88 @@ public class DefaultClassInjector implements ClassInjector {
         this.typeDeterminator = typeDeterminator;
     }
     
+    /**
+     * Injects the static members of a type and afterwards the ones of its subclasses, each in a task of its own. The task of a subclass
+     * injects the members declared by the subclass only - the members of its superclasses were injected by the task before, and injecting them
+     * again would race with the tasks of the sibling subclasses.
+     */
+    protected class StaticMembersTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        protected Class<?> type;
+        protected boolean declaredOnly;
+        protected Map<Class<?>, List<Class<?>>> groups;
+        protected Map<String, Class<?>[]> inheritanceTree;
+        protected ClassLoader classLoader;
+        
+        public StaticMembersTask(Class<?> type, boolean declaredOnly, Map<Class<?>, List<Class<?>>> groups, Map<String, Class<?>[]> inheritanceTree,
+                ClassLoader classLoader) {
+            this.type = type;
+            this.declaredOnly = declaredOnly;
+            this.groups = groups;
+            this.inheritanceTree = inheritanceTree;
+            this.classLoader = classLoader;
+        }
+        
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @Override
+        protected void compute() {
+            List<StaticMembersTask> tasks = new ArrayList<StaticMembersTask>();
+            List<Class<?>> subclasses = groups.get(type);
+            
+            if (type != null && declaredOnly) {
+                injectDeclaredStaticMembers((Class<Object>) type, (Map) inheritanceTree, classLoader);
+            } else if (type != null) {
+                injectStaticMembers((Class<Object>) type, (Map) inheritanceTree, classLoader);
+            }
+            if (subclasses != null) {
+                for (Class<?> subclass : subclasses) {
+                    // the superclasses of the types without one among the types aren't injected by a task
+                    tasks.add(new StaticMembersTask(subclass, type != null, groups, inheritanceTree, classLoader));
+                }
+                invokeAll(tasks);
+            }
+        }
+        
+    }
+    
+    /**
+     * Instances each singleton of a level in a task of its own.
+     */
+    protected class SingletonsTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        protected List<Class<?>> types;
+        protected Map<String, Class<?>[]> inheritanceTree;
+        protected ClassLoader classLoader;
+        
+        public SingletonsTask(List<Class<?>> types, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+            this.types = types;
+            this.inheritanceTree = inheritanceTree;
+            this.classLoader = classLoader;
+        }
+        
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+            
+            for (final Class<?> type : types) {
+                tasks.add(new RecursiveAction() {
+                    
+                    private static final long serialVersionUID = 1L;
+                    
+                    @Override
+                    protected void compute() {
+                        instanceSingleton(type, inheritanceTree, classLoader);
+                    }
+                    
+                });
+            }
+            invokeAll(tasks);
+        }
+        
+    }
+    
 }
@@ -16,6 +16,7 @@
 package com.github.jsr330.instance;
 
 import java.lang.annotation.Annotation;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Named;
 
@@ -29,16 +30,35 @@ import com.github.jsr330.spi.TypeDeterminator;
  */
 public class DefaultTypeDeterminator implements TypeDeterminator {
     
+    /**
+     * Candidate lists shorter than this are scanned linearly.
+     */
+    public static final int INDEX_THRESHOLD = 8;
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultTypeDeterminator.class);
     
+    /**
+     * The last prefix index by type - the candidate arrays belong to an inheritance tree, so an index is built once per type and inheritance
+     * tree. The lookup is lock free and an index of a previous tree is replaced on the first lookup with the new tree.
+     */
+    protected ClassValue<AtomicReference<CandidateIndex>> indexes = new ClassValue<AtomicReference<CandidateIndex>>() {
+        
+        @Override
+        protected AtomicReference<CandidateIndex> computeValue(Class<?> type) {
+            return new AtomicReference<CandidateIndex>();
+        }
+        
+    };
+    
     /**
      * Check for {@link Named} and tries to get the implementation named &lt;name&gt;&lt;typename&gt;.
      * E.g.: Tire will be instanced as SpareTire if named "spare".
+     * The first candidate whose simple name starts with the name (ignoring case) wins.
      */
     @SuppressWarnings("unchecked")
     @Override
     public <T> Class<T> determineClass(Class<T> type, Class<? extends T>[] candidates, Annotation qualifier, ClassLoader classLoader) {
         String namePrefix = "";
+        int position;
         
         if (qualifier != null) {
             if (qualifier instanceof Named) {
@@ -47,13 +67,9 @@ public class DefaultTypeDeterminator implements TypeDeterminator {
                 namePrefix = qualifier.annotationType().getSimpleName();
             }
             
-            if (candidates != null) {
-                for (Class<? extends T> candidate : candidates) {
-                    if (candidate.getSimpleName().toLowerCase().startsWith(namePrefix.toLowerCase())) {
-                        LOGGER.debug("determineClass - returning decent {} for {}", candidate, type);
-                        return (Class<T>) candidate;
-                    }
-                }
+            if (candidates != null && (position = find(type, candidates, namePrefix)) >= 0) {
+                LOGGER.debug("determineClass - returning decent {} for {}", candidates[position], type);
+                return (Class<T>) candidates[position];
             }
         }
         
@@ -61,4 +77,49 @@ public class DefaultTypeDeterminator implements TypeDeterminator {
         return type;
     }
     
+    /**
+     * Gets the position of the first candidate of the type whose simple name starts with the prefix or {@code -1}.
+     */
+    protected int find(Class<?> type, Class<?>[] candidates, String prefix) {
+        if (candidates.length < INDEX_THRESHOLD) {
+            for (int i = 0; i < candidates.length; i++) {
+                if (PrefixIndex.startsWith(candidates[i], prefix)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        return getIndex(type, candidates).find(prefix);
+    }
+    
+    /**
+     * Gets the prefix index of the candidates of the type - it's built if the candidates differ from the last ones of the type.
+     */
+    protected PrefixIndex getIndex(Class<?> type, Class<?>[] candidates) {
+        AtomicReference<CandidateIndex> reference = indexes.get(type);
+        CandidateIndex index = reference.get();
+        
+        if (index == null || index.candidates != candidates) {
+            reference.set(index = new CandidateIndex(candidates, PrefixIndex.build(candidates)));
+        }
+        
+        return index.index;
+    }
+    
+    /**
+     * The prefix index of a candidate array.
+     */
+    protected static final class CandidateIndex {
+        
+        final Class<?>[] candidates;
+        final PrefixIndex index;
+        
+        CandidateIndex(Class<?>[] candidates, PrefixIndex index) {
+            this.candidates = candidates;
+            this.index = index;
+        }
+        
+    }
+    
 }
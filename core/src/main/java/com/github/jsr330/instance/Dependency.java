@@ -0,0 +1,149 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.spi.ClassInjector;
+
+/**
+ * A single resolved dependency of an {@link InjectionPlan} (a constructor / method parameter or a field).
+ * The type is already determined by the {@link com.github.jsr330.spi.TypeDeterminator} when the plan is compiled.
+ */
+public class Dependency {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(Dependency.class);
+    
+    /**
+     * The type to instance.
+     */
+    protected Class<?> type;
+    /**
+     * The type parameters of a may generic type - can be {@code null}.
+     */
+    protected Class<?>[] generics;
+    /**
+     * The qualifier of the injection point - can be {@code null}.
+     */
+    protected Annotation qualifier;
+    /**
+     * The plan this dependency was resolved to by a {@link DefaultClassInjector} - {@code null} until first resolved.
+     */
+    protected volatile Target target;
+    
+    public Dependency(Class<?> type, Class<?>[] generics, Annotation qualifier) {
+        this.type = type;
+        this.generics = generics;
+        this.qualifier = qualifier;
+    }
+    
+    /**
+     * Gets the instance for this dependency from the specified injector.
+     * A {@link DefaultClassInjector} resolves the dependency once - afterwards the plan it was resolved to is executed directly until the
+     * injector is updated.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public Object resolve(ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        DefaultClassInjector defaultInjector;
+        Target cached = target;
+        
+        if (injector instanceof DefaultClassInjector) {
+            defaultInjector = (DefaultClassInjector) injector;
+            if ((cached == null || !defaultInjector.isCurrent(cached))
+                    && (cached = defaultInjector.getTarget(this, inheritanceTree, classLoader)) != null) {
+                target = cached;
+            }
+            if (cached != null) {
+                return cached.instance(inheritanceTree, classLoader);
+            }
+        }
+        
+        return injector.instance((Class<Object>) type, (Map) inheritanceTree, classLoader, generics, qualifier);
+    }
+    
+    public Class<?> getType() {
+        return type;
+    }
+    
+    public Class<?>[] getGenerics() {
+        return generics;
+    }
+    
+    public Annotation getQualifier() {
+        return qualifier;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(getClass().getName());
+        builder.append(" [type=");
+        builder.append(type);
+        builder.append(",\ngenerics=");
+        builder.append(Arrays.toString(generics));
+        builder.append(",\nqualifier=");
+        builder.append(qualifier);
+        builder.append("]");
+        return builder.toString();
+    }
+    
+    /**
+     * The plan (and the holder if it's a singleton) a dependency is resolved to. It's valid for the generation of the injector it was
+     * resolved by - every update starts a new generation.
+     */
+    public static final class Target {
+        
+        final DefaultClassInjector injector;
+        final Object generation;
+        final Class<?> type;
+        final InjectionPlan plan;
+        final SingletonHolder holder;
+        
+        public Target(DefaultClassInjector injector, Object generation, Class<?> type, InjectionPlan plan, SingletonHolder holder) {
+            this.injector = injector;
+            this.generation = generation;
+            this.type = type;
+            this.plan = plan;
+            this.holder = holder;
+        }
+        
+        /**
+         * Executes the plan like {@link DefaultClassInjector#instance(Class, Map, ClassLoader, Class[], Annotation)} does - errors are logged
+         * and yield {@code null}, a {@link DependencyCycleException} is rethrown.
+         */
+        Object instance(Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+            try {
+                return injector.execute(type, plan, holder, inheritanceTree, classLoader);
+            } catch (DependencyCycleException exception) {
+                throw exception;
+            } catch (Exception exception) {
+                LOGGER.debug("error while instancing type", exception);
+                return null;
+            }
+        }
+        
+        public InjectionPlan getPlan() {
+            return plan;
+        }
+        
+    }
+    
+}
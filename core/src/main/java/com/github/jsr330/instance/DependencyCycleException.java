@@ -0,0 +1,42 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.util.List;
+
+/**
+ * Thrown if a type is asked for while it's being created on the same thread. It isn't swallowed like the other errors while creating a
+ * bean, so the caller gets the cycle instead of a bean with missing members.
+ */
+public class DependencyCycleException extends IllegalStateException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final List<Class<?>> cycle;
+    
+    public DependencyCycleException(List<Class<?>> cycle) {
+        super("dependency cycle " + cycle);
+        this.cycle = cycle;
+    }
+    
+    /**
+     * Gets the types of the cycle - the first type is repeated at the end.
+     */
+    public List<Class<?>> getCycle() {
+        return cycle;
+    }
+    
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable model of the object graph: the nodes are the classes instanced, the edges lead from a class to the classes its constructor, field
+ * and method injection points are instanced of. Dependencies on providers are resolved lazily and aren't edges.
+ * The strongly connected components are computed once (Tarjan, without recursion) in O(V + E). They're numbered in topological order - the
+ * components a component depends on come first. A component of more than one class or a class depending on itself is a dependency cycle,
+ * which can't be instanced.
+ */
+public class DependencyGraph {
+    
+    protected final Class<?>[] types;
+    protected final int[][] edges;
+    protected final Map<Class<?>, Integer> ids = new IdentityHashMap<Class<?>, Integer>();
+    /**
+     * The component of each class.
+     */
+    protected final int[] components;
+    /**
+     * The classes of each component.
+     */
+    protected final List<List<Class<?>>> members = new ArrayList<List<Class<?>>>();
+    protected final boolean[] cyclic;
+    /**
+     * The depth of each class - {@code -1} if it's part of a cycle or depends on one.
+     */
+    protected final int[] depths;
+    
+    /**
+     * Creates the graph of the edges {@code id -> edges[id][i]} (class id to the ids of the classes it depends on).
+     */
+    public DependencyGraph(Class<?>[] types, int[][] edges) {
+        this.types = types;
+        this.edges = edges;
+        this.components = new int[types.length];
+        this.depths = new int[types.length];
+        
+        for (int id = 0; id < types.length; id++) {
+            ids.put(types[id], id);
+        }
+        cyclic = computeComponents();
+        computeDepths();
+    }
+    
+    /**
+     * Assigns the components - Tarjan emits a component after all components reachable from it, which is the topological order.
+     */
+    protected boolean[] computeComponents() {
+        int[] index = new int[types.length];
+        int[] low = new int[types.length];
+        int[] positions = new int[types.length];
+        boolean[] onStack = new boolean[types.length];
+        int[] stack = new int[types.length];
+        int[] calls = new int[types.length];
+        List<Boolean> cycles = new ArrayList<Boolean>();
+        boolean[] result;
+        List<Class<?>> component;
+        int counter = 0;
+        int stackSize = 0;
+        int callSize;
+        int node;
+        int next;
+        int member;
+        
+        Arrays.fill(index, -1);
+        for (int start = 0; start < types.length; start++) {
+            if (index[start] >= 0) {
+                continue;
+            }
+            
+            index[start] = low[start] = counter++;
+            stack[stackSize++] = start;
+            onStack[start] = true;
+            calls[0] = start;
+            callSize = 1;
+            while (callSize > 0) {
+                node = calls[callSize - 1];
+                if (positions[node] < edges[node].length) {
+                    next = edges[node][positions[node]++];
+                    if (index[next] < 0) {
+                        index[next] = low[next] = counter++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        calls[callSize++] = next;
+                    } else if (onStack[next]) {
+                        low[node] = Math.min(low[node], index[next]);
+                    }
+                } else {
+                    callSize--;
+                    if (callSize > 0) {
+                        low[calls[callSize - 1]] = Math.min(low[calls[callSize - 1]], low[node]);
+                    }
+                    if (low[node] == index[node]) {
+                        component = new ArrayList<Class<?>>();
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            components[member] = members.size();
+                            component.add(types[member]);
+                        } while (member != node);
+                        cycles.add(component.size() > 1 || dependsOnItself(node));
+                        members.add(Collections.unmodifiableList(component));
+                    }
+                }
+            }
+        }
+        
+        result = new boolean[cycles.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = cycles.get(i);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Computes the depths in topological order, so the depths of the dependencies are known.
+     */
+    protected void computeDepths() {
+        int id;
+        int depth;
+        
+        for (int component = 0; component < members.size(); component++) {
+            for (Class<?> type : members.get(component)) {
+                id = ids.get(type);
+                depth = cyclic[component] ? -1 : 0;
+                for (int i = 0; i < edges[id].length && depth >= 0; i++) {
+                    depth = depths[edges[id][i]] < 0 ? -1 : Math.max(depth, depths[edges[id][i]] + 1);
+                }
+                depths[id] = depth;
+            }
+        }
+    }
+    
+    private boolean dependsOnItself(int id) {
+        for (int dependency : edges[id]) {
+            if (dependency == id) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    public boolean contains(Class<?> type) {
+        return ids.containsKey(type);
+    }
+    
+    public List<Class<?>> getTypes() {
+        return Collections.unmodifiableList(Arrays.asList(types));
+    }
+    
+    /**
+     * Gets the classes the type depends on directly.
+     */
+    public List<Class<?>> getDependencies(Class<?> type) {
+        List<Class<?>> dependencies = new ArrayList<Class<?>>();
+        Integer id = ids.get(type);
+        
+        if (id != null) {
+            for (int dependency : edges[id]) {
+                dependencies.add(types[dependency]);
+            }
+        }
+        
+        return dependencies;
+    }
+    
+    /**
+     * Gets all classes - a class comes after the classes it depends on unless they're part of the same cycle.
+     */
+    public List<Class<?>> getTopologicalOrder() {
+        List<Class<?>> order = new ArrayList<Class<?>>(types.length);
+        
+        for (List<Class<?>> component : members) {
+            order.addAll(component);
+        }
+        
+        return order;
+    }
+    
+    /**
+     * Gets the strongly connected components in topological order.
+     */
+    public List<List<Class<?>>> getComponents() {
+        return Collections.unmodifiableList(members);
+    }
+    
+    /**
+     * Gets the strongly connected component of the type - all classes of a cycle the type is part of.
+     */
+    public List<Class<?>> getComponent(Class<?> type) {
+        Integer id = ids.get(type);
+        
+        return id != null ? members.get(components[id]) : Collections.<Class<?>> emptyList();
+    }
+    
+    /**
+     * Indicates that the type is part of a dependency cycle.
+     */
+    public boolean isCyclic(Class<?> type) {
+        Integer id = ids.get(type);
+        
+        return id != null && cyclic[components[id]];
+    }
+    
+    /**
+     * Gets the depth of the type: 0 for a class without dependencies, otherwise one more than the depth of its deepest dependency. Gives back
+     * {@code -1} if the type is part of a cycle, depends on one or isn't part of the graph.
+     */
+    public int getDepth(Class<?> type) {
+        Integer id = ids.get(type);
+        
+        return id != null ? depths[id] : -1;
+    }
+    
+    /**
+     * Gets the classes by depth - the classes of a level only depend on classes of the levels before. Cycles and the classes depending on them
+     * are left out.
+     */
+    public List<List<Class<?>>> getLevels() {
+        List<List<Class<?>>> levels = new ArrayList<List<Class<?>>>();
+        
+        for (int id = 0; id < types.length; id++) {
+            if (depths[id] >= 0) {
+                while (levels.size() <= depths[id]) {
+                    levels.add(new ArrayList<Class<?>>());
+                }
+                levels.get(depths[id]).add(types[id]);
+            }
+        }
+        
+        return levels;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("DependencyGraph [types=");
+        builder.append(types.length);
+        builder.append(", components=");
+        builder.append(members.size());
+        builder.append("]");
+        return builder.toString();
+    }
+    
+}
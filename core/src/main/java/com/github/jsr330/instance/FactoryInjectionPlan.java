@@ -0,0 +1,53 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.util.Map;
+
+import com.github.jsr330.spi.ClassInjector;
+import com.github.jsr330.spi.TypeFactory;
+
+/**
+ * An {@link InjectionPlan} delegating to a generated {@link TypeFactory}.
+ */
+public class FactoryInjectionPlan extends InjectionPlan {
+    
+    private static final Dependency[] EMPTY_DEPENDENCY_ARRAY = new Dependency[] {};
+    private static final InjectionPoint[] EMPTY_INJECTIONPOINT_ARRAY = new InjectionPoint[] {};
+    
+    /**
+     * The factory creating the beans.
+     */
+    protected TypeFactory<?> typeFactory;
+    
+    public FactoryInjectionPlan(TypeFactory<?> typeFactory) {
+        super(typeFactory.getType(), typeFactory.isSingleton(), null, EMPTY_DEPENDENCY_ARRAY, EMPTY_INJECTIONPOINT_ARRAY);
+        this.typeFactory = typeFactory;
+    }
+    
+    /**
+     * Lets the factory create the bean.
+     */
+    @Override
+    public Object instance(ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) throws Exception {
+        return typeFactory.create(injector, inheritanceTree, classLoader);
+    }
+    
+    public TypeFactory<?> getTypeFactory() {
+        return typeFactory;
+    }
+    
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.spi.ClassInjector;
+
+/**
+ * The compiled form of a {@link TypeContainer}: all constructor / factory method arguments and all non-static fields and methods
+ * are resolved once, so creating a bean needs no further investigation of the type.
+ */
+public class InjectionPlan {
+    
+    private static final Object[] EMPTY_OBJECT_ARRAY = new Object[] {};
+    private static final Logger LOGGER = LoggerFactory.getLogger(InjectionPlan.class);
+    
+    /**
+     * The type the plan was compiled for - can be {@code null} if a provider creates the bean.
+     */
+    protected Class<?> type;
+    /**
+     * Indicates that the bean is a singleton.
+     */
+    protected boolean singleton;
+    /**
+     * Creates the raw bean.
+     */
+    protected Instantiator instantiator;
+    /**
+     * The arguments for the instantiator.
+     */
+    protected Dependency[] arguments;
+    /**
+     * The non-static fields and methods in injection order (base class to subclass, fields before methods).
+     */
+    protected InjectionPoint[] injectionPoints;
+    
+    public InjectionPlan(Class<?> type, boolean singleton, Instantiator instantiator, Dependency[] arguments, InjectionPoint[] injectionPoints) {
+        this.type = type;
+        this.singleton = singleton;
+        this.instantiator = instantiator;
+        this.arguments = arguments;
+        this.injectionPoints = injectionPoints;
+    }
+    
+    /**
+     * Creates the bean and injects all its non-static members.
+     * Errors while injecting a member are logged and don't prevent the injection of the other members - except for a
+     * {@link DependencyCycleException}.
+     */
+    public Object instance(ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) throws Exception {
+        Object inst = instantiator.instance(resolve(arguments, injector, inheritanceTree, classLoader));
+        
+        for (InjectionPoint point : injectionPoints) {
+            try {
+                LOGGER.debug("instance - member injected {} of {}", point.getMember(), type);
+                point.inject(inst, resolve(point.getDependencies(), injector, inheritanceTree, classLoader));
+            } catch (DependencyCycleException exception) {
+                throw exception;
+            } catch (Exception exception) {
+                LOGGER.debug("error while injecting member", exception);
+            }
+        }
+        
+        return inst;
+    }
+    
+    /**
+     * Resolves the values of the dependencies.
+     */
+    protected Object[] resolve(Dependency[] dependencies, ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        Object[] values;
+        
+        if (dependencies.length == 0) {
+            return EMPTY_OBJECT_ARRAY;
+        }
+        
+        values = new Object[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            values[i] = dependencies[i].resolve(injector, inheritanceTree, classLoader);
+        }
+        
+        return values;
+    }
+    
+    public Class<?> getType() {
+        return type;
+    }
+    
+    public boolean isSingleton() {
+        return singleton;
+    }
+    
+    public Instantiator getInstantiator() {
+        return instantiator;
+    }
+    
+    public Dependency[] getArguments() {
+        return arguments;
+    }
+    
+    public InjectionPoint[] getInjectionPoints() {
+        return injectionPoints;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(getClass().getName());
+        builder.append(" [type=");
+        builder.append(type);
+        builder.append(",\nsingleton=");
+        builder.append(singleton);
+        builder.append(",\narguments=");
+        builder.append(Arrays.toString(arguments));
+        builder.append(",\ninjectionPoints=");
+        builder.append(Arrays.toString(injectionPoints));
+        builder.append("]");
+        return builder.toString();
+    }
+    
+}
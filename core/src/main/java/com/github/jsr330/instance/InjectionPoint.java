@@ -0,0 +1,68 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.reflect.Member;
+import java.util.Arrays;
+
+/**
+ * A non-static field or method of an {@link InjectionPlan} together with its already resolved dependencies.
+ */
+public abstract class InjectionPoint {
+    
+    /**
+     * The injected field or method.
+     */
+    protected Member member;
+    /**
+     * The dependencies of the member (one for a field, one per parameter for a method).
+     */
+    protected Dependency[] dependencies;
+    
+    public InjectionPoint(Member member, Dependency[] dependencies) {
+        this.member = member;
+        this.dependencies = dependencies;
+    }
+    
+    /**
+     * Injects the resolved values into the specified bean.
+     * 
+     * @param inst The bean to inject.
+     * @param values The resolved values in order of {@link #getDependencies()}.
+     */
+    public abstract void inject(Object inst, Object[] values) throws Exception;
+    
+    public Member getMember() {
+        return member;
+    }
+    
+    public Dependency[] getDependencies() {
+        return dependencies;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(getClass().getName());
+        builder.append(" [member=");
+        builder.append(member);
+        builder.append(",\ndependencies=");
+        builder.append(Arrays.toString(dependencies));
+        builder.append("]");
+        return builder.toString();
+    }
+    
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+/**
+ * Creates the raw bean of an {@link InjectionPlan} (by constructor, factory method or provider).
+ */
+public interface Instantiator {
+    
+    /**
+     * Creates a new bean.
+     * 
+     * @param arguments The already resolved arguments - never {@code null}.
+     * 
+     * @return Returns the new and not yet member injected bean.
+     */
+    Object instance(Object[] arguments) throws Exception;
+    
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.spi.TypeConfig;
+import com.github.jsr330.spi.TypeDeterminator;
+
+/**
+ * This ClassInjector executes the {@link InjectionPlan}s with an explicit stack of {@link Frame}s instead of calling itself for every
+ * dependency, so the depth of an object graph doesn't affect the stack usage and all beans of a graph are created by a single loop.
+ * Providers, the {@link TypeConfig} and the {@link TypeDeterminator} are asked the same way as by the {@link DefaultClassInjector}.
+ * A singleton is locked while its frame is on the stack, so it's created exactly once.
+ */
+public class IterativeClassInjector extends DefaultClassInjector {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(IterativeClassInjector.class);
+    private static final Object[] EMPTY_OBJECT_ARRAY = new Object[] {};
+    private static final Object PENDING = new Object();
+    
+    public IterativeClassInjector() {
+    }
+    
+    public IterativeClassInjector(TypeConfig config) {
+        super(config);
+    }
+    
+    public IterativeClassInjector(TypeDeterminator typeDeterminator) {
+        super(typeDeterminator);
+    }
+    
+    public IterativeClassInjector(TypeConfig config, TypeDeterminator typeDeterminator) {
+        super(config, typeDeterminator);
+    }
+    
+    /**
+     * Instances the specified type. The top frame resolves its next dependency - either directly (providers, existing singletons) or by
+     * pushing the frame of the dependency. A frame with all dependencies of the current step resolved creates the bean or injects the next
+     * member and gets popped once the bean is complete, its bean is handed to the frame below.
+     * Errors are handled like by {@link DefaultClassInjector#instance(Class, Map, ClassLoader, Class[], Annotation)}: a bean which can't be
+     * created is {@code null} and a member which can't be injected is skipped. A type asked for while its own frame is on the stack is a
+     * dependency cycle and fails with a {@link DependencyCycleException}.
+     */
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <T> T instance(Class<T> type, Map<String, Class<? extends T>[]> inheritanceTree, ClassLoader classLoader, Class<?>[] generics, Annotation qualifier) {
+        FrameStack stack = new FrameStack();
+        Frame frame;
+        Object value;
+        
+        LOGGER.debug("instance - gets instance for {} with generics {}", type, generics);
+        
+        value = push(type, generics, qualifier, stack, (Map) inheritanceTree, classLoader);
+        try {
+            while ((frame = stack.peek()) != null) {
+                if (frame.index < frame.dependencies.length) {
+                    if ((value = push(frame.dependencies[frame.index], stack, (Map) inheritanceTree, classLoader)) != PENDING) {
+                        frame.values[frame.index++] = value;
+                    }
+                    continue;
+                }
+                
+                try {
+                    if (frame.point < 0 && frame.plan.getInstantiator() == null) {
+                        frame.instance = create(frame, (Map) inheritanceTree, classLoader);
+                    } else if (frame.point < 0) {
+                        frame.instance = frame.plan.getInstantiator().instance(frame.values);
+                    } else {
+                        LOGGER.debug("instance - member injected {} of {}", frame.getInjectionPoint().getMember(), frame.type);
+                        frame.getInjectionPoint().inject(frame.instance, frame.values);
+                    }
+                } catch (DependencyCycleException exception) {
+                    throw exception;
+                } catch (Exception exception) {
+                    LOGGER.debug(frame.point < 0 ? "error while instancing type" : "error while injecting member", exception);
+                }
+                
+                if (frame.instance == null || !frame.next()) {
+                    stack.pop();
+                    value = frame.complete();
+                    if ((frame = stack.peek()) != null) {
+                        frame.values[frame.index++] = value;
+                    }
+                }
+            }
+        } finally {
+            while ((frame = stack.poll()) != null) {
+                frame.release();
+            }
+        }
+        
+        return (T) value;
+    }
+    
+    /**
+     * Lets a plan without an {@link Instantiator} (a {@link FactoryInjectionPlan}) create the bean in one step. The factory resolves its
+     * dependencies through this injector again, so the type is tracked like by {@link #execute(Class, InjectionPlan, SingletonHolder, Map,
+     * ClassLoader)} to find the cycles spanning several factories.
+     */
+    protected Object create(Frame frame, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) throws Exception {
+        enter(frame.type);
+        try {
+            return frame.plan.instance(this, inheritanceTree, classLoader);
+        } finally {
+            exit(frame.type);
+        }
+    }
+    
+    /**
+     * Gives back {@code null}: a dependency resolved by a {@link com.github.jsr330.spi.TypeFactory} has to go through the frame stack as well, so the cycles are
+     * detected and the stack doesn't grow.
+     */
+    @Override
+    protected Dependency.Target getTarget(Dependency dependency, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        return null;
+    }
+    
+    /**
+     * Resolves the dependency or pushes its frame.
+     */
+    protected Object push(Dependency dependency, FrameStack stack, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) {
+        return push(dependency.getType(), dependency.getGenerics(), dependency.getQualifier(), stack, inheritanceTree, classLoader);
+    }
+    
+    /**
+     * Resolves the type directly if it's a provider, an existing singleton or can't be created by an {@link InjectionPlan} - otherwise the frame
+     * of the type is pushed and {@link #PENDING} is returned. An abstract type with a single implementation is resolved by the implementation.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Object push(Class<?> type, Class<?>[] generics, Annotation qualifier, FrameStack stack, Map<String, Class<?>[]> inheritanceTree,
+            ClassLoader classLoader) {
+        Class<Object> cls = (Class<Object>) type;
+        Class<?>[] candidates;
+        SingletonHolder holder;
+        InjectionPlan plan;
+        Object inst;
+        
+        while (true) {
+            if (cls.isAssignableFrom(Provider.class)) {
+                return super.instance(cls, (Map) inheritanceTree, classLoader, generics, qualifier);
+            }
+            
+            cls = determineClass(cls, getCandidates(cls, inheritanceTree), qualifier, classLoader);
+            if ((inst = getSingletonHolder(cls).get()) != null) {
+                LOGGER.debug("push - deliver singleton {}", inst);
+                return inst;
+            } else if (!cls.isInterface() && !Modifier.isAbstract(cls.getModifiers())) {
+                break;
+            } else if ((candidates = getCandidates(cls, inheritanceTree)) == null || candidates.length != 1) {
+                return super.instance(cls, (Map) inheritanceTree, classLoader, null, qualifier);
+            }
+            
+            cls = (Class<Object>) candidates[0];
+            generics = null;
+        }
+        
+        if (dependencyGraph.isCyclic(cls)) {
+            throw new DependencyCycleException(dependencyGraph.getComponent(cls));
+        }
+        if (stack.contains(cls)) {
+            throw new DependencyCycleException(stack.getCycle(cls));
+        }
+        if ((plan = getInjectionPlan(cls, (Map) inheritanceTree, qualifier, classLoader)) == null) {
+            return null;
+        }
+        
+        if (plan.isSingleton()) {
+            holder = getSingletonHolder(cls);
+            holder.lock();
+            if ((inst = holder.get()) != null) {
+                holder.unlock();
+                return inst;
+            }
+            stack.push(new Frame(cls, plan, holder));
+        } else {
+            stack.push(new Frame(cls, plan, null));
+        }
+        
+        return PENDING;
+    }
+    
+    /**
+     * The frames of the beans under construction - the types of the frames are kept in an identity set, so a dependency cycle is found without
+     * walking the stack.
+     */
+    protected static class FrameStack {
+        
+        final Deque<Frame> frames = new ArrayDeque<Frame>();
+        final Set<Class<?>> types = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        
+        void push(Frame frame) {
+            frames.push(frame);
+            types.add(frame.type);
+        }
+        
+        Frame peek() {
+            return frames.peek();
+        }
+        
+        Frame pop() {
+            Frame frame = frames.pop();
+            
+            types.remove(frame.type);
+            return frame;
+        }
+        
+        Frame poll() {
+            return frames.isEmpty() ? null : pop();
+        }
+        
+        boolean contains(Class<?> type) {
+            return types.contains(type);
+        }
+        
+        /**
+         * Gets the types from the frame of the specified type up to the top frame, followed by the type again.
+         */
+        List<Class<?>> getCycle(Class<?> type) {
+            List<Class<?>> cycle = new ArrayList<Class<?>>();
+            Iterator<Frame> iterator = frames.descendingIterator();
+            Frame frame;
+            
+            while (iterator.hasNext()) {
+                if ((frame = iterator.next()).type == type || !cycle.isEmpty()) {
+                    cycle.add(frame.type);
+                }
+            }
+            cycle.add(type);
+            
+            return cycle;
+        }
+        
+    }
+    
+    /**
+     * The state of a bean under construction: the plan, the step (-1 creates the bean, any other value injects the member of that index) and the
+     * values of the dependencies of the step resolved so far.
+     */
+    protected static class Frame {
+        
+        final Class<?> type;
+        final InjectionPlan plan;
+        final SingletonHolder holder;
+        Dependency[] dependencies;
+        Object[] values;
+        int index;
+        int point = -1;
+        Object instance;
+        
+        Frame(Class<?> type, InjectionPlan plan, SingletonHolder holder) {
+            this.type = type;
+            this.plan = plan;
+            this.holder = holder;
+            resolve(plan.getArguments());
+        }
+        
+        void resolve(Dependency[] dependencies) {
+            this.dependencies = dependencies;
+            values = dependencies.length == 0 ? EMPTY_OBJECT_ARRAY : new Object[dependencies.length];
+            index = 0;
+        }
+        
+        InjectionPoint getInjectionPoint() {
+            return plan.getInjectionPoints()[point];
+        }
+        
+        /**
+         * Moves on to the next member - returns false if all members are injected.
+         */
+        boolean next() {
+            if (++point < plan.getInjectionPoints().length) {
+                resolve(getInjectionPoint().getDependencies());
+                return true;
+            }
+            return false;
+        }
+        
+        /**
+         * Publishes a singleton and releases its lock - returns the bean.
+         */
+        Object complete() {
+            Object inst = instance;
+            
+            if (holder != null) {
+                if (inst != null) {
+                    inst = holder.publish(inst);
+                }
+                holder.unlock();
+            }
+            
+            return inst;
+        }
+        
+        void release() {
+            if (holder != null) {
+                holder.unlock();
+            }
+        }
+        
+    }
+    
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import javax.inject.Provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.spi.TypeConfig;
+import com.github.jsr330.spi.TypeDeterminator;
+
+/**
+ * This ClassInjector compiles the constructors, factory methods, methods and fields of the {@link InjectionPlan}s to {@link MethodHandle}s
+ * instead of invoking them via core reflection.
+ * Each handle is adapted to a generic signature and spread once when the plan is compiled, so no access checks or per-call adaptations remain.
+ * The handles are held by the plans and not by static final fields, so they aren't constants to the JIT: every member is still an indirect
+ * invocation and the construction of a bean isn't inlined into the caller.
+ */
+public class MethodHandleClassInjector extends DefaultClassInjector {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandleClassInjector.class);
+    private static final MethodHandle PROVIDER_GET;
+    
+    static {
+        try {
+            PROVIDER_GET = MethodHandles.publicLookup().findVirtual(Provider.class, "get", MethodType.methodType(Object.class));
+        } catch (Exception exception) {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+    
+    protected MethodHandles.Lookup lookup = MethodHandles.lookup();
+    
+    public MethodHandleClassInjector() {
+    }
+    
+    public MethodHandleClassInjector(TypeConfig config) {
+        super(config);
+    }
+    
+    public MethodHandleClassInjector(TypeDeterminator typeDeterminator) {
+        super(typeDeterminator);
+    }
+    
+    public MethodHandleClassInjector(TypeConfig config, TypeDeterminator typeDeterminator) {
+        super(config, typeDeterminator);
+    }
+    
+    /**
+     * Creates the instantiator invoking the constructor handle - falls back to reflection if the constructor can't be unreflected.
+     */
+    @Override
+    protected Instantiator createConstructorInstantiator(Constructor<?> constructor) {
+        try {
+            if (!constructor.isAccessible()) {
+                constructor.setAccessible(true);
+            }
+            return new MethodHandleInstantiator(lookup.unreflectConstructor(constructor));
+        } catch (Exception exception) {
+            LOGGER.debug("error while unreflecting constructor", exception);
+            return super.createConstructorInstantiator(constructor);
+        }
+    }
+    
+    /**
+     * Creates the instantiator invoking the static factory method handle - falls back to reflection if the method can't be unreflected.
+     */
+    @Override
+    protected Instantiator createFactoryMethodInstantiator(Method factoryMethod) {
+        try {
+            if (!factoryMethod.isAccessible()) {
+                factoryMethod.setAccessible(true);
+            }
+            return new MethodHandleInstantiator(lookup.unreflect(factoryMethod));
+        } catch (Exception exception) {
+            LOGGER.debug("error while unreflecting factory method", exception);
+            return super.createFactoryMethodInstantiator(factoryMethod);
+        }
+    }
+    
+    /**
+     * Creates the instantiator invoking {@link Provider#get()} bound to the provider.
+     */
+    @Override
+    protected Instantiator createProviderInstantiator(Provider<?> provider) {
+        return new MethodHandleInstantiator(PROVIDER_GET.bindTo(provider));
+    }
+    
+    /**
+     * Creates the injection point invoking the field setter handle - falls back to reflection if the field can't be unreflected.
+     */
+    @Override
+    protected InjectionPoint createFieldInjectionPoint(Field field, Dependency dependency) {
+        try {
+            return new MethodHandleInjectionPoint(field, new Dependency[] { dependency }, lookup.unreflectSetter(field));
+        } catch (Exception exception) {
+            LOGGER.debug("error while unreflecting field", exception);
+            return super.createFieldInjectionPoint(field, dependency);
+        }
+    }
+    
+    /**
+     * Creates the injection point invoking the method handle - falls back to reflection if the method can't be unreflected.
+     */
+    @Override
+    protected InjectionPoint createMethodInjectionPoint(Method method, Dependency[] dependencies) {
+        try {
+            return new MethodHandleInjectionPoint(method, dependencies, lookup.unreflect(method));
+        } catch (Exception exception) {
+            LOGGER.debug("error while unreflecting method", exception);
+            return super.createMethodInjectionPoint(method, dependencies);
+        }
+    }
+    
+    /**
+     * Rethrows errors and gives back exceptions - other throwables are wrapped.
+     */
+    protected static Exception propagate(Throwable throwable) {
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else if (throwable instanceof Exception) {
+            return (Exception) throwable;
+        }
+        
+        return new UndeclaredThrowableException(throwable);
+    }
+    
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Member;
+
+/**
+ * An {@link InjectionPoint} invoking a {@link MethodHandle} (a field setter or a method).
+ */
+public class MethodHandleInjectionPoint extends InjectionPoint {
+    
+    /**
+     * The handle adapted to the generic type {@code (Object, Object...)void} - the bean followed by one parameter per value.
+     */
+    protected MethodHandle handle;
+    /**
+     * The handle spread over a value array of type {@code (Object, Object[])void}.
+     */
+    protected MethodHandle spreader;
+    
+    public MethodHandleInjectionPoint(Member member, Dependency[] dependencies, MethodHandle handle) {
+        super(member, dependencies);
+        
+        int count = handle.type().parameterCount();
+        
+        this.handle = handle.asType(MethodType.genericMethodType(count).changeReturnType(void.class));
+        this.spreader = this.handle.asSpreader(Object[].class, count - 1);
+    }
+    
+    @Override
+    public void inject(Object inst, Object[] values) throws Exception {
+        try {
+            spreader.invokeExact(inst, values);
+        } catch (Throwable throwable) {
+            throw MethodHandleClassInjector.propagate(throwable);
+        }
+    }
+    
+    public MethodHandle getHandle() {
+        return handle;
+    }
+    
+}
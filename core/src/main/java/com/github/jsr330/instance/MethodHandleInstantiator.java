@@ -0,0 +1,55 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+/**
+ * An {@link Instantiator} invoking a {@link MethodHandle} (a constructor, a static factory method or a provider).
+ */
+public class MethodHandleInstantiator implements Instantiator {
+    
+    /**
+     * The handle adapted to the generic type {@code (Object...)Object} - one parameter per argument.
+     */
+    protected MethodHandle handle;
+    /**
+     * The handle spread over an argument array of type {@code (Object[])Object}.
+     */
+    protected MethodHandle spreader;
+    
+    public MethodHandleInstantiator(MethodHandle handle) {
+        int count = handle.type().parameterCount();
+        
+        this.handle = handle.asType(MethodType.genericMethodType(count));
+        this.spreader = this.handle.asSpreader(Object[].class, count);
+    }
+    
+    @Override
+    public Object instance(Object[] arguments) throws Exception {
+        try {
+            return (Object) spreader.invokeExact(arguments);
+        } catch (Throwable throwable) {
+            throw MethodHandleClassInjector.propagate(throwable);
+        }
+    }
+    
+    public MethodHandle getHandle() {
+        return handle;
+    }
+    
+}
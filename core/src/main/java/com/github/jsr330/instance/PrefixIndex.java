@@ -0,0 +1,120 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.util.Arrays;
+
+/**
+ * A trie over the lower case simple names of candidate classes. Every node knows the first candidate (in candidate order) whose name passes
+ * it, so the first candidate starting with a prefix is found in O(prefix length) without allocating.
+ * Letters are lower cased one by one via {@link Character#toLowerCase(char)}.
+ */
+public final class PrefixIndex {
+    
+    private static final char[] EMPTY_CHAR_ARRAY = new char[] {};
+    private static final PrefixIndex[] EMPTY_INDEX_ARRAY = new PrefixIndex[] {};
+    
+    private char[] keys = EMPTY_CHAR_ARRAY;
+    private PrefixIndex[] children = EMPTY_INDEX_ARRAY;
+    private int first = -1;
+    
+    /**
+     * Builds the index of the simple names of the candidates.
+     */
+    public static PrefixIndex build(Class<?>[] candidates) {
+        PrefixIndex root = new PrefixIndex();
+        
+        for (int i = 0; i < candidates.length; i++) {
+            root.insert(candidates[i].getSimpleName(), i);
+        }
+        
+        return root;
+    }
+    
+    /**
+     * Indicates that the simple name of the class starts with the prefix - ignoring the case like the index does.
+     */
+    public static boolean startsWith(Class<?> candidate, String prefix) {
+        String name = candidate.getSimpleName();
+        
+        if (name.length() < prefix.length()) {
+            return false;
+        }
+        
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(name.charAt(i)) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Gets the position of the first candidate starting with the prefix or {@code -1} if there is none.
+     */
+    public int find(String prefix) {
+        PrefixIndex node = this;
+        int index;
+        
+        for (int i = 0; i < prefix.length(); i++) {
+            if ((index = Arrays.binarySearch(node.keys, Character.toLowerCase(prefix.charAt(i)))) < 0) {
+                return -1;
+            }
+            node = node.children[index];
+        }
+        
+        return node.first;
+    }
+    
+    private void insert(String name, int position) {
+        PrefixIndex node = this;
+        int index;
+        char key;
+        
+        for (int i = 0; i <= name.length(); i++) {
+            if (node.first < 0) {
+                node.first = position;
+            }
+            if (i == name.length()) {
+                break;
+            }
+            
+            key = Character.toLowerCase(name.charAt(i));
+            if ((index = Arrays.binarySearch(node.keys, key)) < 0) {
+                index = -index - 1;
+                node.addChild(index, key);
+            }
+            node = node.children[index];
+        }
+    }
+    
+    private void addChild(int index, char key) {
+        char[] newKeys = new char[keys.length + 1];
+        PrefixIndex[] newChildren = new PrefixIndex[children.length + 1];
+        
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(children, 0, newChildren, 0, index);
+        newKeys[index] = key;
+        newChildren[index] = new PrefixIndex();
+        System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+        System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+        
+        keys = newKeys;
+        children = newChildren;
+    }
+    
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An instance of a qualifier created without reflecting on an annotated member - used by the generated type factories. It follows the contract
+ * of {@link Annotation}: it equals and hashes like the qualifier of the same type and values read by reflection.
+ */
+public final class QualifierLiteral implements InvocationHandler {
+    
+    private final Class<? extends Annotation> type;
+    private final Map<String, Object> values = new TreeMap<String, Object>();
+    
+    private QualifierLiteral(Class<? extends Annotation> type) {
+        this.type = type;
+    }
+    
+    /**
+     * Creates the qualifier of the type - the values are given as pairs of member name and value, defaults included.
+     */
+    public static <T extends Annotation> T create(Class<T> type, Object... namesAndValues) {
+        QualifierLiteral literal = new QualifierLiteral(type);
+        
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            literal.values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, literal));
+    }
+    
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+        String name = method.getName();
+        Object value;
+        
+        if ("equals".equals(name) && arguments != null && arguments.length == 1) {
+            return equals(proxy, arguments[0]);
+        } else if ("hashCode".equals(name) && arguments == null) {
+            return hash();
+        } else if ("toString".equals(name) && arguments == null) {
+            return toString();
+        } else if ("annotationType".equals(name) && arguments == null) {
+            return type;
+        }
+        
+        value = values.get(name);
+        return value != null && value.getClass().isArray() ? clone(value) : value;
+    }
+    
+    /**
+     * Compares the values member by member - the values of another literal are compared directly, the ones of any other implementation are
+     * read through the members of the annotation type.
+     */
+    private boolean equals(Object proxy, Object other) throws Exception {
+        Map<String, Object> others = null;
+        Method member;
+        Object value;
+        
+        if (proxy == other) {
+            return true;
+        } else if (!type.isInstance(other)) {
+            return false;
+        } else if (Proxy.isProxyClass(other.getClass()) && Proxy.getInvocationHandler(other) instanceof QualifierLiteral) {
+            others = ((QualifierLiteral) Proxy.getInvocationHandler(other)).values;
+        }
+        
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (others != null) {
+                value = others.get(entry.getKey());
+            } else {
+                member = type.getDeclaredMethod(entry.getKey());
+                member.setAccessible(true);
+                value = member.invoke(other);
+            }
+            if (!Arrays.deepEquals(new Object[] { entry.getValue() }, new Object[] { value })) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * The sum of {@code 127 * name.hashCode() ^ value hash} of all members - arrays are hashed like {@link Arrays#hashCode(Object[])} does.
+     */
+    private int hash() {
+        int hash = 0;
+        
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            // deepHashCode of a single element array is 31 + the hash of the element
+            hash += (127 * entry.getKey().hashCode()) ^ (Arrays.deepHashCode(new Object[] { entry.getValue() }) - 31);
+        }
+        
+        return hash;
+    }
+    
+    private static Object clone(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append('@');
+        builder.append(type.getName());
+        builder.append('(');
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (builder.charAt(builder.length() - 1) != '(') {
+                builder.append(", ");
+            }
+            builder.append(entry.getKey());
+            builder.append('=');
+            builder.append(Arrays.deepToString(new Object[] { entry.getValue() }).replaceAll("^\\[|\\]$", ""));
+        }
+        builder.append(')');
+        return builder.toString();
+    }
+    
+}
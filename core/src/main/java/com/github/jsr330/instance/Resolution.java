@@ -0,0 +1,71 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * A cached {@link com.github.jsr330.spi.TypeDeterminator} answer. The candidates and the class loader are compared by identity - a new
+ * inheritance tree yields new candidate arrays. The qualifier is compared by identity and only then by {@link Annotation#equals(Object)}, so
+ * the qualifier of a member is matched without invoking it and equal qualifiers on different members share the answer.
+ */
+public final class Resolution {
+    
+    private final Class<?>[] candidates;
+    private final Annotation qualifier;
+    private final ClassLoader classLoader;
+    private final Class<?> resolvedClass;
+    
+    public Resolution(Class<?>[] candidates, Annotation qualifier, ClassLoader classLoader, Class<?> resolvedClass) {
+        this.candidates = candidates;
+        this.qualifier = qualifier;
+        this.classLoader = classLoader;
+        this.resolvedClass = resolvedClass;
+    }
+    
+    /**
+     * Gets the resolution of the qualifier (compared by identity) or {@code null}.
+     */
+    public static Resolution find(Resolution[] resolutions, Class<?>[] candidates, Annotation qualifier, ClassLoader classLoader) {
+        for (Resolution resolution : resolutions) {
+            if (resolution.qualifier == qualifier && resolution.candidates == candidates && resolution.classLoader == classLoader) {
+                return resolution;
+            }
+        }
+        
+        if (qualifier != null) {
+            for (Resolution resolution : resolutions) {
+                if (resolution.candidates == candidates && resolution.classLoader == classLoader && qualifier.equals(resolution.qualifier)) {
+                    return resolution;
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Indicates that both resolutions answer the same qualifier - the newer one replaces the other.
+     */
+    public boolean isReplacedBy(Resolution other) {
+        return qualifier == null ? other.qualifier == null : qualifier == other.qualifier || qualifier.equals(other.qualifier);
+    }
+    
+    public Class<?> getResolvedClass() {
+        return resolvedClass;
+    }
+    
+}
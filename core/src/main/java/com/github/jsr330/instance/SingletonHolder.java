@@ -0,0 +1,96 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.instance;
+
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.jsr330.spi.ClassInjector;
+
+/**
+ * The slot of a singleton. The instance is published by a volatile write, so reading an existing singleton needs no lock. Creating it is
+ * guarded by the reentrant lock of the slot - i.e. per type.
+ */
+public final class SingletonHolder {
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Object instance;
+    
+    /**
+     * Gets the singleton or {@code null} if it isn't created yet.
+     */
+    public Object get() {
+        return instance;
+    }
+    
+    /**
+     * Gets the singleton - the plan is executed at most once, threads asking concurrently wait for the first one.
+     * If the plan asks for its own type on the same thread (e.g. through a provider) the first stored instance wins.
+     */
+    public Object get(InjectionPlan plan, ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) throws Exception {
+        Object inst = instance;
+        
+        if (inst == null) {
+            lock.lock();
+            try {
+                if ((inst = instance) == null) {
+                    inst = publish(plan.instance(injector, inheritanceTree, classLoader));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        return inst;
+    }
+    
+    /**
+     * Acquires the lock guarding the creation - for injectors creating the singleton step by step instead of by {@link #get(InjectionPlan,
+     * ClassInjector, Map, ClassLoader)}. The lock is reentrant.
+     */
+    public void lock() {
+        lock.lock();
+    }
+    
+    /**
+     * Releases the lock acquired by {@link #lock()}.
+     */
+    public void unlock() {
+        lock.unlock();
+    }
+    
+    /**
+     * Stores the created singleton unless one was stored already - the lock has to be held. Returns the stored singleton.
+     */
+    public Object publish(Object inst) {
+        if (instance == null) {
+            instance = inst;
+            return inst;
+        }
+        
+        return instance;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("SingletonHolder [instance=");
+        builder.append(instance);
+        builder.append("]");
+        return builder.toString();
+    }
+    
+}
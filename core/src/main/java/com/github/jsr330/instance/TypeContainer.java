@@ -30,13 +30,15 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import com.github.jsr330.spi.TypeFactory;
+
 /**
  * This is an information container for classes.
  */
 public class TypeContainer {
     
     public enum InstanceMode {
-        CONSTRUCTOR, FACTORY_METHOD, PROVIDER
+        CONSTRUCTOR, FACTORY_METHOD, PROVIDER, TYPE_FACTORY
     }
     
     private static final Field[] EMPTY_FIELD_ARRAY = new Field[] {};
@@ -63,12 +65,16 @@ public class TypeContainer {
      * The (static) method to instantiate the bean.
      */
     protected Method factoryMethod;
+    /**
+     * The generated factory to instantiate the bean.
+     */
+    protected TypeFactory<?> typeFactory;
     /**
      * Indicates that this bean is a singleton.
      */
     protected boolean singleton = false;
     /**
-     * The mode for the instantiation (method, constructor or provider).
+     * The mode for the instantiation (method, constructor, provider or generated factory).
      */
     protected InstanceMode instanceMode = InstanceMode.CONSTRUCTOR;
     
@@ -283,6 +289,14 @@ public class TypeContainer {
         this.factoryMethod = factoryMethod;
     }
     
+    public TypeFactory<?> getTypeFactory() {
+        return typeFactory;
+    }
+    
+    public void setTypeFactory(TypeFactory<?> typeFactory) {
+        this.typeFactory = typeFactory;
+    }
+    
     public InstanceMode getInstanceMode() {
         return instanceMode;
     }
@@ -303,6 +317,8 @@ public class TypeContainer {
         builder.append(constructor);
         builder.append(",\nfactoryMethod=");
         builder.append(factoryMethod);
+        builder.append(",\ntypeFactory=");
+        builder.append(typeFactory);
         builder.append(",\nsingleton=");
         builder.append(singleton);
         builder.append(",\ninstanceMode=");
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.GenericFilter;
+import com.github.jsr330.spi.ClassScanner;
+
+/**
+ * A ClassScanner which reads the class file headers instead of loading the classes. It gives back {@link ScannedClasses}, which load a class on
+ * first access only - the {@link com.github.jsr330.analysis.InheritanceAnalyser} builds the inheritance tree from the {@link ClassMetadata}
+ * and the {@link com.github.jsr330.instance.DefaultClassInjector} skips the classes without static injection points.
+ */
+public class BytecodeClassScanner extends DefaultClassScanner {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(BytecodeClassScanner.class);
+    
+    public BytecodeClassScanner() {
+        super();
+    }
+    
+    public BytecodeClassScanner(ClassScanner parent) {
+        super(parent);
+    }
+    
+    public BytecodeClassScanner(GenericFilter<URI> sourceDirFilter, GenericFilter<String> classNameFilter) {
+        super(sourceDirFilter, classNameFilter);
+    }
+    
+    public BytecodeClassScanner(ClassScanner parent, GenericFilter<URI> sourceDirFilter, GenericFilter<String> classNameFilter) {
+        super(parent, sourceDirFilter, classNameFilter);
+    }
+    
+    @Override
+    protected Map<String, Class<?>> createClassMap(ClassLoader loader) {
+        return new ScannedClasses(loader);
+    }
+    
+    @Override
+    protected void addClasses(Map<String, Class<?>> classes, Map<String, Class<?>> parentClasses) {
+        for (Map.Entry<String, Class<?>> entry : parentClasses.entrySet()) {
+            ((ScannedClasses) classes).register(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * Inflates the entry of the class only - the other entries of the jar aren't read.
+     */
+    @Override
+    protected void createClass(ClassLoader loader, Map<String, Class<?>> classes, String name, ZipFile zipFile, ZipEntry entry) {
+        InputStream stream = null;
+        
+        if (classNameFilter == null || classNameFilter.filter(name)) {
+            try {
+                stream = zipFile.getInputStream(entry);
+                register(classes, name, ClassFileReader.read(stream));
+            } catch (IOException exception) {
+                LOGGER.debug("error while reading class file", exception);
+            } finally {
+                if (stream != null) {
+                    try {
+                        stream.close();
+                    } catch (IOException exception) {
+                        LOGGER.debug("error while closing stream", exception);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * This scanner stores the {@link ClassMetadata} in the {@link ScanIndex}.
+     */
+    @Override
+    protected String getIndexKind() {
+        return "classes";
+    }
+    
+    @Override
+    protected ClassMetadata readMetadata(ZipFile zipFile, ZipEntry entry, String name) throws IOException {
+        InputStream stream = zipFile.getInputStream(entry);
+        ClassMetadata classMetadata;
+        
+        try {
+            classMetadata = ClassFileReader.read(stream);
+        } finally {
+            stream.close();
+        }
+        
+        return isClass(name, classMetadata) ? classMetadata : null;
+    }
+    
+    @Override
+    protected ClassMetadata readMetadata(File file, String name) throws IOException {
+        InputStream stream = new FileInputStream(file);
+        ClassMetadata classMetadata;
+        
+        try {
+            classMetadata = ClassFileReader.read(stream);
+        } finally {
+            stream.close();
+        }
+        
+        return isClass(name, classMetadata) ? classMetadata : null;
+    }
+    
+    @Override
+    protected void createClass(ClassLoader loader, Map<String, Class<?>> classes, ClassMetadata classMetadata) {
+        if (classNameFilter == null || classNameFilter.filter(classMetadata.getName())) {
+            ((ScannedClasses) classes).register(classMetadata);
+        }
+    }
+    
+    @Override
+    protected void createClass(ClassLoader loader, Map<String, Class<?>> classes, String name, File file) {
+        InputStream stream = null;
+        
+        if (classNameFilter == null || classNameFilter.filter(name)) {
+            try {
+                stream = new FileInputStream(file);
+                register(classes, name, ClassFileReader.read(stream));
+            } catch (IOException exception) {
+                LOGGER.debug("error while reading class file", exception);
+            } finally {
+                if (stream != null) {
+                    try {
+                        stream.close();
+                    } catch (IOException exception) {
+                        LOGGER.debug("error while closing stream", exception);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Registers the metadata if it describes a class.
+     */
+    protected void register(Map<String, Class<?>> classes, String name, ClassMetadata classMetadata) {
+        if (isClass(name, classMetadata)) {
+            ((ScannedClasses) classes).register(classMetadata);
+        }
+    }
+    
+    /**
+     * Indicates that the class file matches its location and describes a class - module descriptors don't.
+     */
+    protected boolean isClass(String name, ClassMetadata classMetadata) {
+        return name.equals(classMetadata.getName()) && (classMetadata.getAccess() & ClassMetadata.ACC_MODULE) == 0;
+    }
+    
+}
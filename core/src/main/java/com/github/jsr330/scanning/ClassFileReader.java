@@ -0,0 +1,238 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the {@link ClassMetadata} out of a class file: the constant pool, the access flags, the supertypes and the runtime-visible annotations
+ * of the class and its members. Code and all other attributes are skipped.
+ */
+public class ClassFileReader {
+    
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_STATIC = 0x0008;
+    private static final String INJECT = "Ljavax/inject/Inject;";
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String[] EMPTY_STRING_ARRAY = new String[] {};
+    
+    protected DataInputStream input;
+    /**
+     * The UTF8 constants by index - all other constants are {@code null}.
+     */
+    protected String[] strings;
+    /**
+     * The name index of the class constants by index.
+     */
+    protected int[] classes;
+    
+    protected ClassFileReader(InputStream stream) {
+        input = new DataInputStream(new BufferedInputStream(stream));
+    }
+    
+    /**
+     * Reads the metadata of a class file - the stream isn't closed.
+     * 
+     * @throws IOException If the stream doesn't contain a valid class file.
+     */
+    public static ClassMetadata read(InputStream stream) throws IOException {
+        return new ClassFileReader(stream).read();
+    }
+    
+    protected ClassMetadata read() throws IOException {
+        int access;
+        String name;
+        String superName;
+        String[] interfaceNames;
+        List<String> annotations = new ArrayList<String>();
+        boolean staticInjection = false;
+        
+        if (input.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        input.readUnsignedShort();
+        input.readUnsignedShort();
+        readConstantPool();
+        
+        access = input.readUnsignedShort();
+        name = getClassName(input.readUnsignedShort());
+        superName = getClassName(input.readUnsignedShort());
+        interfaceNames = new String[input.readUnsignedShort()];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaceNames[i] = getClassName(input.readUnsignedShort());
+        }
+        
+        // fields and methods share the same layout
+        for (int kind = 0; kind < 2; kind++) {
+            for (int count = input.readUnsignedShort(); count > 0; count--) {
+                staticInjection |= readMember();
+            }
+        }
+        readAttributes(annotations);
+        for (int i = 0; i < annotations.size(); i++) {
+            annotations.set(i, toBinaryName(annotations.get(i)));
+        }
+        
+        return new ClassMetadata(name, access, (access & ClassMetadata.ACC_INTERFACE) != 0 ? null : superName, interfaceNames,
+                annotations.toArray(EMPTY_STRING_ARRAY), staticInjection);
+    }
+    
+    /**
+     * Reads the constant pool keeping the UTF8 and class constants only.
+     */
+    protected void readConstantPool() throws IOException {
+        int count = input.readUnsignedShort();
+        int tag;
+        
+        strings = new String[count];
+        classes = new int[count];
+        for (int index = 1; index < count; index++) {
+            switch (tag = input.readUnsignedByte()) {
+                case 1:
+                    strings[index] = input.readUTF();
+                    break;
+                case 7:
+                    classes[index] = input.readUnsignedShort();
+                    break;
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    input.skipBytes(2);
+                    break;
+                case 15:
+                    input.skipBytes(3);
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    input.skipBytes(4);
+                    break;
+                case 5:
+                case 6:
+                    // long and double take two entries
+                    input.skipBytes(8);
+                    index++;
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+    }
+    
+    /**
+     * Reads a field or a method and indicates whether it's a static member annotated with {@code Inject}.
+     */
+    protected boolean readMember() throws IOException {
+        int access = input.readUnsignedShort();
+        List<String> annotations = new ArrayList<String>();
+        
+        input.skipBytes(4);
+        readAttributes(annotations);
+        
+        return (access & ACC_STATIC) != 0 && annotations.contains(INJECT);
+    }
+    
+    /**
+     * Reads the attributes collecting the descriptors of the runtime-visible annotations.
+     */
+    protected void readAttributes(List<String> annotations) throws IOException {
+        String attribute;
+        int length;
+        
+        for (int count = input.readUnsignedShort(); count > 0; count--) {
+            attribute = strings[input.readUnsignedShort()];
+            length = input.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attribute)) {
+                for (int annotation = input.readUnsignedShort(); annotation > 0; annotation--) {
+                    annotations.add(readAnnotation());
+                }
+            } else {
+                skip(length);
+            }
+        }
+    }
+    
+    /**
+     * Reads an annotation and gives back its descriptor - the element values are skipped.
+     */
+    protected String readAnnotation() throws IOException {
+        String descriptor = strings[input.readUnsignedShort()];
+        
+        for (int pair = input.readUnsignedShort(); pair > 0; pair--) {
+            input.skipBytes(2);
+            skipElementValue();
+        }
+        
+        return descriptor;
+    }
+    
+    protected void skipElementValue() throws IOException {
+        int tag = input.readUnsignedByte();
+        
+        switch (tag) {
+            case 'e':
+                input.skipBytes(4);
+                break;
+            case '@':
+                readAnnotation();
+                break;
+            case '[':
+                for (int value = input.readUnsignedShort(); value > 0; value--) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                input.skipBytes(2);
+        }
+    }
+    
+    protected void skip(int length) throws IOException {
+        int skipped;
+        
+        while (length > 0) {
+            if ((skipped = input.skipBytes(length)) <= 0) {
+                throw new IOException("unexpected end of class file");
+            }
+            length -= skipped;
+        }
+    }
+    
+    /**
+     * Gets the binary name of the class constant - {@code null} for index 0.
+     */
+    protected String getClassName(int index) {
+        return index == 0 ? null : strings[classes[index]].replace('/', '.');
+    }
+    
+    /**
+     * Converts an annotation descriptor like {@code Ljavax/inject/Inject;} to the binary name of the annotation.
+     */
+    protected String toBinaryName(String descriptor) {
+        return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+    }
+    
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The index of the classes of a jar or a class directory written at compile time by the {@code ClassIndexProcessor}. The
+ * {@link DefaultClassScanner} reads the index of a class path root instead of traversing it. Each line of an index file describes one class:
+ * 
+ * <pre>
+ * &lt;binary classname&gt; &lt;access flags in hex&gt; &lt;superclass or -&gt; &lt;comma separated interfaces or -&gt;
+ * &lt;comma separated runtime annotations or -&gt; &lt;static|-&gt;
+ * </pre>
+ * 
+ * The last column tells if a static field or method of the class is annotated with {@link javax.inject.Inject}.
+ */
+public class ClassIndex {
+    
+    public static final String RESOURCE = "META-INF/jsr-330/index";
+    public static final String NONE = "-";
+    public static final String STATIC = "static";
+    
+    private static final String[] EMPTY_STRING_ARRAY = new String[] {};
+    private static final Pattern COLUMN_SEPARATOR_REGEX = Pattern.compile("\\s+");
+    private static final Pattern LIST_SEPARATOR_REGEX = Pattern.compile(",");
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassIndex.class);
+    
+    /**
+     * Reads an index file - the stream is closed afterwards.
+     */
+    public static List<ClassMetadata> read(InputStream stream) throws IOException {
+        List<ClassMetadata> classes = new ArrayList<ClassMetadata>();
+        BufferedReader reader = null;
+        String line;
+        String[] columns;
+        
+        try {
+            reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && line.charAt(0) != '#') {
+                    columns = COLUMN_SEPARATOR_REGEX.split(line);
+                    if (columns.length == 6) {
+                        classes.add(parse(columns));
+                    } else {
+                        LOGGER.debug("read - malformed line {}", line);
+                    }
+                }
+            }
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException exception) {
+                    LOGGER.debug("error while closing stream", exception);
+                }
+            } else {
+                stream.close();
+            }
+        }
+        
+        return classes;
+    }
+    
+    /**
+     * Gets the line of the class.
+     */
+    public static String format(ClassMetadata classMetadata) {
+        StringBuilder builder = new StringBuilder();
+        
+        builder.append(classMetadata.getName()).append(' ');
+        builder.append(Integer.toHexString(classMetadata.getAccess())).append(' ');
+        builder.append(classMetadata.getSuperName() != null ? classMetadata.getSuperName() : NONE).append(' ');
+        builder.append(formatList(classMetadata.getInterfaceNames())).append(' ');
+        builder.append(formatList(classMetadata.getAnnotations())).append(' ');
+        builder.append(classMetadata.hasStaticInjection() ? STATIC : NONE);
+        
+        return builder.toString();
+    }
+    
+    protected static ClassMetadata parse(String[] columns) {
+        return new ClassMetadata(columns[0], Integer.parseInt(columns[1], 16), NONE.equals(columns[2]) ? null : columns[2],
+                parseList(columns[3]), parseList(columns[4]), STATIC.equals(columns[5]));
+    }
+    
+    protected static String[] parseList(String column) {
+        return NONE.equals(column) ? EMPTY_STRING_ARRAY : LIST_SEPARATOR_REGEX.split(column);
+    }
+    
+    protected static String formatList(String[] names) {
+        StringBuilder builder = new StringBuilder();
+        
+        for (String name : names) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(name);
+        }
+        
+        return builder.length() > 0 ? builder.toString() : NONE;
+    }
+    
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+import javax.inject.Inject;
+
+/**
+ * The information of a class read from its class file header - the class itself isn't loaded.
+ */
+public class ClassMetadata {
+    
+    public static final int ACC_INTERFACE = 0x0200;
+    public static final int ACC_ABSTRACT = 0x0400;
+    public static final int ACC_ANNOTATION = 0x2000;
+    public static final int ACC_MODULE = 0x8000;
+    
+    private static final String[] EMPTY_STRING_ARRAY = new String[] {};
+    
+    /**
+     * The binary name of the class.
+     */
+    protected String name;
+    /**
+     * The access flags of the class.
+     */
+    protected int access;
+    /**
+     * The binary name of the superclass - {@code null} for {@link Object} and interfaces.
+     */
+    protected String superName;
+    /**
+     * The binary names of the directly implemented interfaces.
+     */
+    protected String[] interfaceNames;
+    /**
+     * The binary names of the runtime-visible annotations of the class.
+     */
+    protected String[] annotations;
+    /**
+     * Indicates that a static field or method of the class is annotated with {@link Inject}.
+     */
+    protected boolean staticInjection;
+    
+    public ClassMetadata(String name, int access, String superName, String[] interfaceNames, String[] annotations, boolean staticInjection) {
+        this.name = name;
+        this.access = access;
+        this.superName = superName;
+        this.interfaceNames = interfaceNames;
+        this.annotations = annotations;
+        this.staticInjection = staticInjection;
+    }
+    
+    /**
+     * Gets the information of an already loaded class.
+     */
+    public ClassMetadata(Class<?> type) {
+        name = type.getName();
+        access = type.getModifiers() | (type.isInterface() ? ACC_INTERFACE : 0) | (type.isAnnotation() ? ACC_ANNOTATION : 0);
+        superName = type.getSuperclass() != null && !type.isInterface() ? type.getSuperclass().getName() : null;
+        interfaceNames = new String[type.getInterfaces().length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaceNames[i] = type.getInterfaces()[i].getName();
+        }
+        annotations = EMPTY_STRING_ARRAY;
+        try {
+            annotations = new String[type.getDeclaredAnnotations().length];
+            for (int i = 0; i < annotations.length; i++) {
+                annotations[i] = type.getDeclaredAnnotations()[i].annotationType().getName();
+            }
+            for (Field field : type.getDeclaredFields()) {
+                staticInjection |= Modifier.isStatic(field.getModifiers()) && field.isAnnotationPresent(Inject.class);
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                staticInjection |= Modifier.isStatic(method.getModifiers()) && method.isAnnotationPresent(Inject.class);
+            }
+        } catch (Throwable exception) {
+            // a type which members can't be resolved can't be injected either
+            staticInjection = false;
+        }
+    }
+    
+    public boolean isInterface() {
+        return (access & ACC_INTERFACE) != 0;
+    }
+    
+    public boolean isAbstract() {
+        return (access & ACC_ABSTRACT) != 0;
+    }
+    
+    /**
+     * Indicates that the class may be instanced - it's neither an interface nor abstract.
+     */
+    public boolean isConcrete() {
+        return (access & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+    }
+    
+    public boolean isAnnotationPresent(Class<? extends Annotation> annotation) {
+        for (String tmp : annotations) {
+            if (tmp.equals(annotation.getName())) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getAccess() {
+        return access;
+    }
+    
+    public String getSuperName() {
+        return superName;
+    }
+    
+    public String[] getInterfaceNames() {
+        return interfaceNames;
+    }
+    
+    public String[] getAnnotations() {
+        return annotations;
+    }
+    
+    public boolean hasStaticInjection() {
+        return staticInjection;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("ClassMetadata [name=");
+        builder.append(name);
+        builder.append(", access=");
+        builder.append(access);
+        builder.append(", superName=");
+        builder.append(superName);
+        builder.append(", interfaceNames=");
+        builder.append(Arrays.toString(interfaceNames));
+        builder.append(", annotations=");
+        builder.append(Arrays.toString(annotations));
+        builder.append(", staticInjection=");
+        builder.append(staticInjection);
+        builder.append("]");
+        return builder.toString();
+    }
+    
+}
@@ -16,16 +16,28 @@
 package com.github.jsr330.scanning;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,18 +48,34 @@ import com.github.jsr330.spi.ClassScanner;
 /**
  * A ClassScanner that used a classname and a source filter to optimize scanning.
  * This ClassScanner can be based on another ClassScanner to avoid the rescanning of base classes.
+ * If a {@link ForkJoinPool} is assigned the roots of the class path and the subdirectories of directory roots are traversed in parallel - the
+ * filters have to be thread-safe then.
+ * A jar or a directory containing a {@link ClassIndex} isn't traversed, the classes of the index are added instead.
+ * If watching directories is enabled the classes of each directory root are kept up to date by a {@link WatchedDirectory}.
+ * If an index directory is assigned the classes of each jar are stored in a {@link ScanIndex}, which is read instead of the jar as long as the
+ * jar is unchanged.
  */
 public class DefaultClassScanner implements ClassScanner {
     
     private static final Pattern FILE_SEPARATOR_REGEX = Pattern.compile("\\" + System.getProperty("file.separator"));
     private static final Pattern ENTRY_SEPARATOR_REGEX = Pattern.compile("/");
+    private static final String[] EMPTY_STRING_ARRAY = new String[] {};
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultClassScanner.class);
     
     protected ClassScanner parent;
     protected GenericFilter<URI> sourceDirFilter;
     protected GenericFilter<String> classNameFilter;
     protected Map<String, Class<?>> classes;
+    /**
+     * The classes of the parent and of all roots which aren't watched.
+     */
+    protected Map<String, Class<?>> unwatchedClasses;
     protected Object monitor = new Object();
+    protected ForkJoinPool pool;
+    protected File indexDirectory;
+    protected boolean classIndexEnabled = true;
+    protected boolean watchDirectories;
+    protected Map<String, WatchedDirectory> watchedDirectories = new ConcurrentHashMap<String, WatchedDirectory>();
     
     public DefaultClassScanner() {
         this(null, null, null);
@@ -67,95 +95,411 @@ public class DefaultClassScanner implements ClassScanner {
         this.classNameFilter = classNameFilter;
     }
     
-    @Override
-    public Map<String, Class<?>> scan(ClassLoader loader) {
+    /**
+     * Gets the roots (directories and jars) of the class loader - the ones with a META-INF folder and the directories without one.
+     */
+    public static Set<String> getRoots(ClassLoader loader) throws IOException {
+        Set<String> roots = new LinkedHashSet<String>();
         Enumeration<URL> urls;
-        URL url;
         String tmp;
+        
+        urls = loader.getResources("META-INF");
+        while (urls.hasMoreElements()) {
+            tmp = urls.nextElement().toExternalForm();
+            roots.add(tmp.substring(0, tmp.length() - 8));
+        }
+        urls = loader.getResources("");
+        while (urls.hasMoreElements()) {
+            tmp = urls.nextElement().toExternalForm();
+            roots.add(tmp.endsWith("/") ? tmp : tmp + "/");
+        }
+        
+        return roots;
+    }
+    
+    /**
+     * Scans the roots of the class loader once - later calls give back the same classes. With watched directories the classes of the
+     * directories are taken from their {@link WatchedDirectory}s on every call instead, so creating, modifying and deleting class files shows
+     * up in the classes given back.
+     */
+    @Override
+    public Map<String, Class<?>> scan(ClassLoader loader) {
         Map<String, Class<?>> parentClasses;
-        File file;
-        URI uri;
+        List<String> roots = new ArrayList<String>();
         
         synchronized (monitor) {
-            if (classes == null) {
-                classes = new TreeMap<String, Class<?>>();
+            if (unwatchedClasses == null) {
+                unwatchedClasses = createClassMap(loader);
                 
                 if (parent != null) {
                     if ((parentClasses = parent.scan(loader)) != null) {
-                        classes.putAll(parentClasses);
+                        addClasses(unwatchedClasses, parentClasses);
                     }
                 }
                 
                 try {
-                    urls = loader.getResources("META-INF");
-                    while (urls.hasMoreElements()) {
-                        url = urls.nextElement();
-                        tmp = url.toExternalForm();
-                        tmp = tmp.substring(0, tmp.length() - 8);
-                        LOGGER.debug("listClasses - source={}", tmp);
-                        
-                        try {
-                            if (tmp.startsWith("file:")) {
-                                uri = new URI(tmp);
-                                if (sourceDirFilter == null || sourceDirFilter != null && sourceDirFilter.filter(uri)) {
-                                    file = new File(uri);
-                                    traverseFile(file.getAbsolutePath(), file, loader, classes);
-                                }
-                            } else if (tmp.startsWith("jar:")) {
-                                uri = new URI(tmp.substring(4, tmp.length() - 2));
-                                if (sourceDirFilter == null || sourceDirFilter != null && sourceDirFilter.filter(uri)) {
-                                    file = new File(uri);
-                                    traverseJar(file.getAbsolutePath(), file.toURI().toURL(), loader, classes);
-                                }
-                            }
-                        } catch (URISyntaxException exception) {
-                            LOGGER.debug("error while generating URI", exception);
-                        }
-                    }
+                    roots.addAll(getRoots(loader));
                 } catch (IOException exception) {
                     LOGGER.debug("error while traversing jar", exception);
                 }
+                
+                if (pool == null) {
+                    for (String root : roots) {
+                        traverseRoot(root, loader, unwatchedClasses);
+                    }
+                } else {
+                    pool.invoke(new RootsTask(roots, loader, unwatchedClasses));
+                }
+                
+                classes = unwatchedClasses;
+            }
+            
+            if (!watchedDirectories.isEmpty()) {
+                classes = createClassMap(loader);
+                classes.putAll(unwatchedClasses);
+                for (Map.Entry<String, WatchedDirectory> entry : watchedDirectories.entrySet()) {
+                    traverseWatchedDirectory(entry.getKey(), entry.getValue().getDirectory(), loader, classes);
+                }
             }
         }
         
         return classes;
     }
     
+    /**
+     * Traverses a directory or a jar of the class path.
+     */
+    protected void traverseRoot(String root, ClassLoader loader, Map<String, Class<?>> classes) {
+        File file;
+        URI uri;
+        
+        LOGGER.debug("listClasses - source={}", root);
+        try {
+            if (root.startsWith("file:")) {
+                uri = new URI(root);
+                if (sourceDirFilter == null || sourceDirFilter != null && sourceDirFilter.filter(uri)) {
+                    file = new File(uri);
+                    // a watched directory is always up to date, its class index may not
+                    if (watchDirectories && file.isDirectory()) {
+                        watchDirectory(root, file, loader, classes);
+                    } else if (!(classIndexEnabled && traverseClassIndex(root, loader, classes))) {
+                        traverseFile(file.getAbsolutePath(), file, loader, classes);
+                    }
+                }
+            } else if (root.startsWith("jar:")) {
+                uri = new URI(root.substring(4, root.length() - 2));
+                if ((sourceDirFilter == null || sourceDirFilter != null && sourceDirFilter.filter(uri))
+                        && !(classIndexEnabled && traverseClassIndex(root, loader, classes))) {
+                    file = new File(uri);
+                    if (indexDirectory != null) {
+                        traverseIndexedJar(file, loader, classes);
+                    } else {
+                        traverseJar(file.getAbsolutePath(), file.toURI().toURL(), loader, classes);
+                    }
+                }
+            }
+        } catch (URISyntaxException exception) {
+            LOGGER.debug("error while generating URI", exception);
+        } catch (IOException exception) {
+            LOGGER.debug("error while traversing jar", exception);
+        }
+    }
+    
+    /**
+     * Starts watching the directory - its classes are added by {@link #scan(ClassLoader)} from then on. The directory is traversed right away
+     * if it can't be watched.
+     */
+    protected void watchDirectory(String root, File directory, ClassLoader loader, Map<String, Class<?>> classes) {
+        if (!watchedDirectories.containsKey(root)) {
+            try {
+                close(watchedDirectories.put(root, new WatchedDirectory(this, directory)));
+            } catch (IOException exception) {
+                LOGGER.debug("error while watching directory", exception);
+                traverseFile(directory.getAbsolutePath(), directory, loader, classes);
+            }
+        }
+    }
+    
+    /**
+     * Adds the classes of the directory from its {@link WatchedDirectory} - the directory is traversed only if it isn't watched yet or events
+     * were lost.
+     */
+    protected void traverseWatchedDirectory(String root, File directory, ClassLoader loader, Map<String, Class<?>> classes) {
+        WatchedDirectory watched = watchedDirectories.get(root);
+        
+        if (watched != null && !watched.update()) {
+            close(watched);
+            watched = null;
+        }
+        
+        if (watched == null) {
+            try {
+                watched = new WatchedDirectory(this, directory);
+            } catch (IOException exception) {
+                LOGGER.debug("error while watching directory", exception);
+                traverseFile(directory.getAbsolutePath(), directory, loader, classes);
+                return;
+            }
+            close(watchedDirectories.put(root, watched));
+        }
+        
+        for (ClassMetadata classMetadata : watched.getClasses()) {
+            createClass(loader, classes, classMetadata);
+        }
+    }
+    
+    protected void close(WatchedDirectory watched) {
+        if (watched != null) {
+            try {
+                watched.close();
+            } catch (IOException exception) {
+                LOGGER.debug("error while closing watch service", exception);
+            }
+        }
+    }
+    
+    /**
+     * Adds the classes of the {@link ClassIndex} of the root - gives back {@code false} if the root has no index or the index of a directory
+     * doesn't match its class files.
+     */
+    protected boolean traverseClassIndex(String root, ClassLoader loader, Map<String, Class<?>> classes) {
+        URLConnection connection;
+        List<ClassMetadata> entries;
+        
+        try {
+            connection = new URL(root + ClassIndex.RESOURCE).openConnection();
+            // a cached connection keeps the jar open
+            connection.setUseCaches(false);
+            entries = ClassIndex.read(connection.getInputStream());
+        } catch (FileNotFoundException exception) {
+            return false;
+        } catch (IOException exception) {
+            LOGGER.debug("error while reading class index", exception);
+            return false;
+        }
+        
+        if (root.startsWith("file:") && !isClassIndexCurrent(root, entries)) {
+            LOGGER.debug("traverseClassIndex - stale index in {}", root);
+            return false;
+        }
+        
+        LOGGER.debug("traverseClassIndex - root={}, classes={}", root, entries.size());
+        for (ClassMetadata classMetadata : entries) {
+            createClass(loader, classes, classMetadata);
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Indicates that the class index of the directory lists exactly the class files of the directory - classes compiled or deleted without the
+     * processor make the index stale. The class files are listed only, not read. Local and anonymous classes aren't indexed.
+     */
+    protected boolean isClassIndexCurrent(String root, List<ClassMetadata> entries) {
+        Set<String> indexed = new HashSet<String>();
+        Set<String> names = new HashSet<String>();
+        File directory;
+        
+        try {
+            directory = new File(new URI(root));
+        } catch (URISyntaxException exception) {
+            LOGGER.debug("error while generating URI", exception);
+            return false;
+        }
+        
+        for (ClassMetadata classMetadata : entries) {
+            indexed.add(classMetadata.getName());
+        }
+        listIndexableClasses(directory.getAbsolutePath(), directory, names);
+        
+        return indexed.equals(names);
+    }
+    
+    protected void listIndexableClasses(String base, File file, Set<String> names) {
+        File[] files;
+        String name;
+        
+        if (file.isDirectory()) {
+            if ((files = file.listFiles()) != null) {
+                for (File tmp : files) {
+                    listIndexableClasses(base, tmp, names);
+                }
+            }
+        } else if ((name = file.getAbsolutePath()).endsWith(".class")) {
+            name = name.substring(base.length() + 1);
+            name = FILE_SEPARATOR_REGEX.matcher(name).replaceAll(".");
+            name = name.substring(0, name.length() - 6);
+            if (isIndexable(name)) {
+                names.add(name);
+            }
+        }
+    }
+    
+    /**
+     * Indicates that the class may be part of a {@link ClassIndex} - the local and anonymous classes and the package and module infos aren't.
+     */
+    protected boolean isIndexable(String name) {
+        String simpleName = name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1);
+        
+        return simpleName.length() > 0 && !Character.isDigit(simpleName.charAt(0)) && !simpleName.equals("package-info")
+                && !simpleName.equals("module-info");
+    }
+    
+    /**
+     * Creates the map the scanned classes are put into - a concurrent one if the roots are traversed in parallel.
+     */
+    protected Map<String, Class<?>> createClassMap(ClassLoader loader) {
+        if (pool != null) {
+            return new ConcurrentSkipListMap<String, Class<?>>();
+        }
+        
+        return new TreeMap<String, Class<?>>();
+    }
+    
+    /**
+     * Adds the classes of the parent scanner.
+     */
+    protected void addClasses(Map<String, Class<?>> classes, Map<String, Class<?>> parentClasses) {
+        classes.putAll(parentClasses);
+    }
+    
+    /**
+     * Lists the classes of the jar by its central directory - the entries aren't inflated unless a subclass reads them.
+     */
     protected void traverseJar(String base, URL url, ClassLoader loader, Map<String, Class<?>> classes) {
-        JarInputStream stream = null;
-        JarEntry entry;
+        ZipFile zipFile = null;
+        Enumeration<? extends ZipEntry> entries;
+        ZipEntry entry;
         String name;
         
         try {
-            stream = new JarInputStream(url.openStream());
-            while ((entry = stream.getNextJarEntry()) != null) {
-                if ((name = entry.getName()).endsWith(".class")) {
-                    name = ENTRY_SEPARATOR_REGEX.matcher(name).replaceAll(".");
-                    name = name.substring(0, name.length() - 6);
+            zipFile = new ZipFile(new File(url.toURI()));
+            entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                if ((name = getClassName(entry = entries.nextElement())) != null) {
                     LOGGER.debug("traverseJar - name={}", name);
                     
-                    createClass(loader, classes, name);
+                    createClass(loader, classes, name, zipFile, entry);
                 }
             }
         } catch (Exception exception) {
             LOGGER.debug("error while traversing jar", exception);
         } finally {
-            if (stream != null) {
+            if (zipFile != null) {
+                try {
+                    zipFile.close();
+                } catch (IOException exception) {
+                    LOGGER.debug("error while closing jar", exception);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Adds the classes of the jar from its {@link ScanIndex} - a jar without a valid index is indexed first.
+     */
+    protected void traverseIndexedJar(File jar, ClassLoader loader, Map<String, Class<?>> classes) {
+        List<ClassMetadata> entries = ScanIndex.read(indexDirectory, jar, getIndexKind());
+        
+        if (entries == null && (entries = indexJar(jar)) != null) {
+            ScanIndex.write(indexDirectory, jar, getIndexKind(), entries);
+        }
+        
+        if (entries != null) {
+            for (ClassMetadata classMetadata : entries) {
+                createClass(loader, classes, classMetadata);
+            }
+        }
+    }
+    
+    /**
+     * Lists all classes of the jar for its index - the class name filter isn't applied, so the index can be shared by all scanners of its
+     * kind. Gives back {@code null} if the jar can't be read.
+     */
+    protected List<ClassMetadata> indexJar(File jar) {
+        List<ClassMetadata> entries = new ArrayList<ClassMetadata>();
+        ZipFile zipFile = null;
+        Enumeration<? extends ZipEntry> zipEntries;
+        ClassMetadata classMetadata;
+        ZipEntry entry;
+        String name;
+        
+        try {
+            zipFile = new ZipFile(jar);
+            zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                if ((name = getClassName(entry = zipEntries.nextElement())) != null) {
+                    try {
+                        if ((classMetadata = readMetadata(zipFile, entry, name)) != null) {
+                            entries.add(classMetadata);
+                        }
+                    } catch (IOException exception) {
+                        LOGGER.debug("error while reading class file", exception);
+                    }
+                }
+            }
+            
+            return entries;
+        } catch (IOException exception) {
+            LOGGER.debug("error while traversing jar", exception);
+        } finally {
+            if (zipFile != null) {
                 try {
-                    stream.close();
+                    zipFile.close();
                 } catch (IOException exception) {
-                    LOGGER.debug("error while closing stream", exception);
+                    LOGGER.debug("error while closing jar", exception);
                 }
             }
         }
+        
+        return null;
+    }
+    
+    /**
+     * Gets the kind of the {@link ScanIndex} - this scanner stores the class names only.
+     */
+    protected String getIndexKind() {
+        return "names";
+    }
+    
+    /**
+     * Gets the information of a jar entry stored in the {@link ScanIndex} - {@code null} skips the entry.
+     */
+    protected ClassMetadata readMetadata(ZipFile zipFile, ZipEntry entry, String name) throws IOException {
+        return new ClassMetadata(name, 0, null, EMPTY_STRING_ARRAY, EMPTY_STRING_ARRAY, false);
+    }
+    
+    /**
+     * Gets the information of a class file kept by a {@link WatchedDirectory} - {@code null} skips the file.
+     */
+    protected ClassMetadata readMetadata(File file, String name) throws IOException {
+        return new ClassMetadata(name, 0, null, EMPTY_STRING_ARRAY, EMPTY_STRING_ARRAY, false);
+    }
+    
+    /**
+     * Gets the binary class name of the jar entry or {@code null} if it isn't a class file.
+     */
+    protected String getClassName(ZipEntry entry) {
+        String name = entry.getName();
+        
+        if (!name.endsWith(".class")) {
+            return null;
+        }
+        
+        name = ENTRY_SEPARATOR_REGEX.matcher(name).replaceAll(".");
+        return name.substring(0, name.length() - 6);
     }
     
     protected void traverseFile(String base, File file, ClassLoader loader, Map<String, Class<?>> classes) {
         String name;
         
         if (file.isDirectory()) {
-            for (File tmp : file.listFiles()) {
-                traverseFile(base, tmp, loader, classes);
+            if (pool != null && ForkJoinTask.inForkJoinPool()) {
+                new DirectoryTask(base, file, loader, classes).invoke();
+            } else {
+                for (File tmp : file.listFiles()) {
+                    traverseFile(base, tmp, loader, classes);
+                }
             }
         } else if ((name = file.getAbsolutePath()).endsWith(".class")) {
             name = name.substring(base.length() + 1);
@@ -163,10 +507,31 @@ public class DefaultClassScanner implements ClassScanner {
             name = name.substring(0, name.length() - 6);
             LOGGER.debug("traverseFile - name={}", name);
             
-            createClass(loader, classes, name);
+            createClass(loader, classes, name, file);
         }
     }
     
+    /**
+     * Adds the class of a jar entry.
+     */
+    protected void createClass(ClassLoader loader, Map<String, Class<?>> classes, String name, ZipFile zipFile, ZipEntry entry) {
+        createClass(loader, classes, name);
+    }
+    
+    /**
+     * Adds the class of a {@link ScanIndex} entry.
+     */
+    protected void createClass(ClassLoader loader, Map<String, Class<?>> classes, ClassMetadata classMetadata) {
+        createClass(loader, classes, classMetadata.getName());
+    }
+    
+    /**
+     * Adds the class of a class file.
+     */
+    protected void createClass(ClassLoader loader, Map<String, Class<?>> classes, String name, File file) {
+        createClass(loader, classes, name);
+    }
+    
     protected void createClass(ClassLoader loader, Map<String, Class<?>> classes, String name) {
         if (classNameFilter == null || classNameFilter != null && classNameFilter.filter(name)) {
             try {
@@ -177,4 +542,134 @@ public class DefaultClassScanner implements ClassScanner {
         }
     }
     
+    public boolean isWatchDirectories() {
+        return watchDirectories;
+    }
+    
+    /**
+     * Enables watching the directories of the class path, so a rescan only reads the class files changed since the last scan. Disabling it
+     * closes the watches - the next scan traverses all roots again.
+     */
+    public void setWatchDirectories(boolean watchDirectories) {
+        this.watchDirectories = watchDirectories;
+        if (!watchDirectories && !watchedDirectories.isEmpty()) {
+            synchronized (monitor) {
+                for (WatchedDirectory watched : watchedDirectories.values()) {
+                    close(watched);
+                }
+                watchedDirectories.clear();
+                unwatchedClasses = null;
+            }
+        }
+    }
+    
+    public boolean isClassIndexEnabled() {
+        return classIndexEnabled;
+    }
+    
+    /**
+     * Enables reading the {@link ClassIndex} of a root instead of traversing it.
+     */
+    public void setClassIndexEnabled(boolean classIndexEnabled) {
+        this.classIndexEnabled = classIndexEnabled;
+    }
+    
+    public File getIndexDirectory() {
+        return indexDirectory;
+    }
+    
+    /**
+     * Assigns the directory of the {@link ScanIndex} files of the jars - {@code null} traverses the jars on every scan.
+     */
+    public void setIndexDirectory(File indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+    
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+    
+    /**
+     * Assigns the pool the roots of the class path are traversed in - {@code null} traverses them one after another.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Traverses each root of the class path in a task of its own.
+     */
+    protected class RootsTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        protected List<String> roots;
+        protected ClassLoader loader;
+        protected Map<String, Class<?>> classes;
+        
+        public RootsTask(List<String> roots, ClassLoader loader, Map<String, Class<?>> classes) {
+            this.roots = roots;
+            this.loader = loader;
+            this.classes = classes;
+        }
+        
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+            
+            for (final String root : roots) {
+                tasks.add(new RecursiveAction() {
+                    
+                    private static final long serialVersionUID = 1L;
+                    
+                    @Override
+                    protected void compute() {
+                        traverseRoot(root, loader, classes);
+                    }
+                    
+                });
+            }
+            invokeAll(tasks);
+        }
+        
+    }
+    
+    /**
+     * Traverses the files of a directory and each subdirectory in a task of its own.
+     */
+    protected class DirectoryTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        protected String base;
+        protected File directory;
+        protected ClassLoader loader;
+        protected Map<String, Class<?>> classes;
+        
+        public DirectoryTask(String base, File directory, ClassLoader loader, Map<String, Class<?>> classes) {
+            this.base = base;
+            this.directory = directory;
+            this.loader = loader;
+            this.classes = classes;
+        }
+        
+        @Override
+        protected void compute() {
+            List<DirectoryTask> tasks = new ArrayList<DirectoryTask>();
+            File[] files = directory.listFiles();
+            
+            if (files != null) {
+                for (File file : files) {
+                    if (file.isDirectory()) {
+                        tasks.add(new DirectoryTask(base, file, loader, classes));
+                    } else {
+                        traverseFile(base, file, loader, classes);
+                    }
+                }
+            }
+            invokeAll(tasks);
+        }
+        
+    }
+    
 }
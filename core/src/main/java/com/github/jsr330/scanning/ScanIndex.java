@@ -0,0 +1,227 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The persistent index of the classes of a jar, so an unchanged jar doesn't have to be traversed again. An index is valid as long as the path,
+ * the size and the modification time of the jar match. The index files are memory-mapped when read and replaced atomically when written.
+ * The binary format is:
+ * 
+ * <pre>
+ * int magic, int version, string path, long size, long modification time, int count,
+ * count * (string name, int access, string superName, strings interfaceNames, strings annotations, byte staticInjection)
+ * </pre>
+ * 
+ * A string is an unsigned short length followed by the UTF-8 bytes, an absent string has the length 0xFFFF, strings are an unsigned short count
+ * followed by the strings.
+ */
+public class ScanIndex {
+    
+    private static final int MAGIC = 0x4A333330;
+    private static final int VERSION = 1;
+    private static final int ABSENT = 0xFFFF;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanIndex.class);
+    
+    /**
+     * Reads the index of the jar or gives back {@code null} if there is no valid one.
+     * 
+     * @param directory The directory of the index files.
+     * @param jar The jar indexed.
+     * @param kind The kind of the index - the scanners store different information.
+     */
+    public static List<ClassMetadata> read(File directory, File jar, String kind) {
+        File file = getIndexFile(directory, jar, kind);
+        RandomAccessFile input = null;
+        ByteBuffer buffer;
+        List<ClassMetadata> classes;
+        int count;
+        
+        if (!file.isFile()) {
+            return null;
+        }
+        
+        try {
+            input = new RandomAccessFile(file, "r");
+            buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !jar.getAbsolutePath().equals(readString(buffer))
+                    || buffer.getLong() != jar.length() || buffer.getLong() != jar.lastModified()) {
+                LOGGER.debug("read - index {} is outdated", file);
+                return null;
+            }
+            
+            classes = new ArrayList<ClassMetadata>(count = buffer.getInt());
+            for (int i = 0; i < count; i++) {
+                classes.add(new ClassMetadata(readString(buffer), buffer.getInt(), readString(buffer), readStrings(buffer), readStrings(buffer),
+                        buffer.get() != 0));
+            }
+            LOGGER.debug("read - {} classes of {} from index", classes.size(), jar);
+            
+            return classes;
+        } catch (Exception exception) {
+            LOGGER.debug("error while reading index", exception);
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException exception) {
+                    LOGGER.debug("error while closing index", exception);
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Writes the index of the jar - errors are logged only, an index is an optimization.
+     * 
+     * @param directory The directory of the index files - it's created if needed.
+     * @param jar The jar indexed.
+     * @param kind The kind of the index - the scanners store different information.
+     * @param classes The classes of the jar.
+     */
+    public static void write(File directory, File jar, String kind, List<ClassMetadata> classes) {
+        File file = getIndexFile(directory, jar, kind);
+        File temporary = null;
+        DataOutputStream output = null;
+        
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("can't create " + directory);
+            }
+            
+            temporary = File.createTempFile(file.getName(), ".tmp", directory);
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            writeString(output, jar.getAbsolutePath());
+            output.writeLong(jar.length());
+            output.writeLong(jar.lastModified());
+            output.writeInt(classes.size());
+            for (ClassMetadata classMetadata : classes) {
+                writeString(output, classMetadata.getName());
+                output.writeInt(classMetadata.getAccess());
+                writeString(output, classMetadata.getSuperName());
+                writeStrings(output, classMetadata.getInterfaceNames());
+                writeStrings(output, classMetadata.getAnnotations());
+                output.writeByte(classMetadata.hasStaticInjection() ? 1 : 0);
+            }
+            output.close();
+            output = null;
+            
+            // readers see either the previous or the complete index
+            if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+                throw new IOException("can't replace " + file);
+            }
+            temporary = null;
+            LOGGER.debug("write - {} classes of {} to index", classes.size(), jar);
+        } catch (IOException exception) {
+            LOGGER.debug("error while writing index", exception);
+        } finally {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException exception) {
+                    LOGGER.debug("error while closing index", exception);
+                }
+            }
+            if (temporary != null) {
+                temporary.delete();
+            }
+        }
+    }
+    
+    /**
+     * Gets the index file of the jar - named after the digest of its path.
+     */
+    protected static File getIndexFile(File directory, File jar, String kind) {
+        StringBuilder name = new StringBuilder();
+        
+        try {
+            for (byte value : MessageDigest.getInstance("SHA-1").digest(jar.getAbsolutePath().getBytes(UTF8))) {
+                name.append(HEX[(value >> 4) & 0xF]).append(HEX[value & 0xF]);
+            }
+        } catch (NoSuchAlgorithmException exception) {
+            name.append(Integer.toHexString(jar.getAbsolutePath().hashCode()));
+        }
+        
+        return new File(directory, name.append('.').append(kind).toString());
+    }
+    
+    protected static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes;
+        
+        if (length == ABSENT) {
+            return null;
+        }
+        
+        bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+    
+    protected static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getShort() & 0xFFFF];
+        
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer);
+        }
+        
+        return strings;
+    }
+    
+    protected static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes;
+        
+        if (string == null) {
+            output.writeShort(ABSENT);
+        } else {
+            if ((bytes = string.getBytes(UTF8)).length >= ABSENT) {
+                throw new IOException("string too long");
+            }
+            output.writeShort(bytes.length);
+            output.write(bytes);
+        }
+    }
+    
+    protected static void writeStrings(DataOutputStream output, String[] strings) throws IOException {
+        output.writeShort(strings.length);
+        for (String string : strings) {
+            writeString(output, string);
+        }
+    }
+    
+}
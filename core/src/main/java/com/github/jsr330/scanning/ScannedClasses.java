@@ -0,0 +1,265 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The classes found by the {@link BytecodeClassScanner}: the map is backed by the {@link ClassMetadata} of the class files and a class is
+ * loaded on first access of its value only. Classes which can't be loaded give back {@code null}.
+ * The map is immutable for its users.
+ */
+public class ScannedClasses extends AbstractMap<String, Class<?>> {
+    
+    private static final ClassMetadata NONE = new ClassMetadata(null, 0, null, null, null, false);
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScannedClasses.class);
+    
+    protected ClassLoader loader;
+    /**
+     * The metadata of the scanned classes in order of their names - the class path may be scanned in parallel.
+     */
+    protected Map<String, ClassMetadata> metadata = new ConcurrentSkipListMap<String, ClassMetadata>();
+    /**
+     * The metadata of the supertypes which aren't scanned - read on demand.
+     */
+    protected ConcurrentMap<String, ClassMetadata> supertypes = new ConcurrentHashMap<String, ClassMetadata>();
+    protected ConcurrentMap<String, Class<?>> loaded = new ConcurrentHashMap<String, Class<?>>();
+    protected Set<String> failed = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    protected Set<Map.Entry<String, Class<?>>> entrySet = new EntrySet();
+    
+    public ScannedClasses(ClassLoader loader) {
+        this.loader = loader;
+    }
+    
+    /**
+     * Adds a scanned class file.
+     */
+    protected void register(ClassMetadata classMetadata) {
+        metadata.put(classMetadata.getName(), classMetadata);
+    }
+    
+    /**
+     * Adds an already loaded class - e.g. of a parent scanner.
+     */
+    protected void register(String name, Class<?> type) {
+        metadata.put(name, new ClassMetadata(type));
+        loaded.put(name, type);
+    }
+    
+    /**
+     * Gets the metadata of a scanned class or {@code null}.
+     */
+    public ClassMetadata getMetadata(String name) {
+        return metadata.get(name);
+    }
+    
+    /**
+     * Gets the metadata of all scanned classes in order of their names.
+     */
+    public Map<String, ClassMetadata> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
+    }
+    
+    /**
+     * Gets the metadata of any class visible to the class loader - classes which aren't scanned are read from their class file without
+     * loading them. Gives back {@code null} if there is no class file.
+     */
+    public ClassMetadata readMetadata(String name) {
+        ClassMetadata classMetadata = metadata.get(name);
+        InputStream stream = null;
+        
+        if (classMetadata == null && (classMetadata = supertypes.get(name)) == null) {
+            classMetadata = NONE;
+            try {
+                if ((stream = loader.getResourceAsStream(name.replace('.', '/') + ".class")) != null) {
+                    classMetadata = ClassFileReader.read(stream);
+                }
+            } catch (IOException exception) {
+                LOGGER.debug("error while reading class file", exception);
+            } finally {
+                if (stream != null) {
+                    try {
+                        stream.close();
+                    } catch (IOException exception) {
+                        LOGGER.debug("error while closing stream", exception);
+                    }
+                }
+            }
+            supertypes.putIfAbsent(name, classMetadata);
+        }
+        
+        return classMetadata == NONE ? null : classMetadata;
+    }
+    
+    /**
+     * Indicates that the class or one of its superclasses has a static member annotated with {@link javax.inject.Inject} - classes of the
+     * {@code java} packages aren't read.
+     */
+    public boolean hasStaticInjection(String name) {
+        ClassMetadata current = readMetadata(name);
+        
+        while (current != null) {
+            if (current.hasStaticInjection()) {
+                return true;
+            }
+            current = current.getSuperName() == null || current.getSuperName().startsWith("java.") ? null : readMetadata(current.getSuperName());
+        }
+        
+        return false;
+    }
+    
+    public ClassLoader getClassLoader() {
+        return loader;
+    }
+    
+    /**
+     * Gets the class - it's loaded without initialization on first access.
+     */
+    @Override
+    public Class<?> get(Object key) {
+        Class<?> type = loaded.get(key);
+        Class<?> existing;
+        
+        if (type == null && metadata.containsKey(key) && !failed.contains(key)) {
+            try {
+                type = Class.forName((String) key, false, loader);
+                if ((existing = loaded.putIfAbsent((String) key, type)) != null) {
+                    type = existing;
+                }
+            } catch (Throwable exception) {
+                LOGGER.debug("error while loading class", exception);
+                failed.add((String) key);
+            }
+        }
+        
+        return type;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return metadata.containsKey(key);
+    }
+    
+    @Override
+    public int size() {
+        return metadata.size();
+    }
+    
+    @Override
+    public Set<Map.Entry<String, Class<?>>> entrySet() {
+        return entrySet;
+    }
+    
+    /**
+     * The entries of the scanned classes in order of their names.
+     */
+    protected class EntrySet extends AbstractSet<Map.Entry<String, Class<?>>> {
+        
+        @Override
+        public Iterator<Map.Entry<String, Class<?>>> iterator() {
+            final Iterator<String> names = metadata.keySet().iterator();
+            
+            return new Iterator<Map.Entry<String, Class<?>>>() {
+                
+                @Override
+                public boolean hasNext() {
+                    return names.hasNext();
+                }
+                
+                @Override
+                public Map.Entry<String, Class<?>> next() {
+                    return new Entry(names.next());
+                }
+                
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+                
+            };
+        }
+        
+        @Override
+        public int size() {
+            return metadata.size();
+        }
+        
+    }
+    
+    /**
+     * An entry which loads its class on {@link #getValue()}.
+     */
+    protected class Entry implements Map.Entry<String, Class<?>> {
+        
+        protected String name;
+        
+        public Entry(String name) {
+            this.name = name;
+        }
+        
+        @Override
+        public String getKey() {
+            return name;
+        }
+        
+        @Override
+        public Class<?> getValue() {
+            return get(name);
+        }
+        
+        @Override
+        public Class<?> setValue(Class<?> value) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public int hashCode() {
+            return name.hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            Map.Entry<?, ?> other;
+            
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            
+            other = (Map.Entry<?, ?>) obj;
+            return name.equals(other.getKey()) && (getValue() == null ? other.getValue() == null : getValue().equals(other.getValue()));
+        }
+        
+        @Override
+        public String toString() {
+            return name + "=" + getValue();
+        }
+        
+    }
+    
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.spi.TypeFactory;
+
+/**
+ * The registry of the classes and generated {@link TypeFactory}s written at compile time.
+ * If every root of the class path has one it replaces the class scanning and the inheritance analysis.
+ * Each line of a registry file describes one class:
+ * 
+ * <pre>
+ * &lt;binary classname&gt; &lt;class|abstract|interface&gt; &lt;factory classname or -&gt; &lt;comma separated supertypes or -&gt;
+ * </pre>
+ */
+public class TypeFactoryRegistry {
+    
+    public static final String RESOURCE = "META-INF/jsr-330/registry";
+    public static final String KIND_CLASS = "class";
+    public static final String KIND_ABSTRACT = "abstract";
+    public static final String KIND_INTERFACE = "interface";
+    public static final String NONE = "-";
+    
+    private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[] {};
+    private static final Pattern COLUMN_SEPARATOR_REGEX = Pattern.compile("\\s+");
+    private static final Pattern LIST_SEPARATOR_REGEX = Pattern.compile(",");
+    private static final Logger LOGGER = LoggerFactory.getLogger(TypeFactoryRegistry.class);
+    
+    protected Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+    protected Map<String, Class<?>[]> inheritanceTree = new TreeMap<String, Class<?>[]>();
+    protected Map<String, TypeFactory<?>> factories = new TreeMap<String, TypeFactory<?>>();
+    protected Map<String, String[]> supertypes = new TreeMap<String, String[]>();
+    /**
+     * The roots of the class path the registry files were read from.
+     */
+    protected Set<String> roots = new TreeSet<String>();
+    
+    /**
+     * Reads all registry files visible to the class loader or gives back {@code null} if there is none.
+     */
+    public static TypeFactoryRegistry load(ClassLoader loader) {
+        Enumeration<URL> urls;
+        TypeFactoryRegistry registry;
+        URL url;
+        String tmp;
+        
+        try {
+            urls = loader.getResources(RESOURCE);
+            if (!urls.hasMoreElements()) {
+                return null;
+            }
+            
+            registry = new TypeFactoryRegistry();
+            while (urls.hasMoreElements()) {
+                url = urls.nextElement();
+                registry.read(url, loader);
+                tmp = url.toExternalForm();
+                registry.roots.add(tmp.substring(0, tmp.length() - RESOURCE.length()));
+            }
+            registry.link();
+            
+            return registry;
+        } catch (IOException exception) {
+            LOGGER.debug("error while reading registry", exception);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Reads a single registry file.
+     */
+    protected void read(URL url, ClassLoader loader) throws IOException {
+        BufferedReader reader = null;
+        String line;
+        String[] columns;
+        
+        LOGGER.debug("read - registry {}", url);
+        try {
+            reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && line.charAt(0) != '#') {
+                    columns = COLUMN_SEPARATOR_REGEX.split(line);
+                    if (columns.length == 4) {
+                        register(columns, loader);
+                    } else {
+                        LOGGER.debug("read - malformed line {}", line);
+                    }
+                }
+            }
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException exception) {
+                    LOGGER.debug("error while closing stream", exception);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Loads the class and the factory of a line.
+     */
+    protected void register(String[] columns, ClassLoader loader) {
+        Class<?> type;
+        
+        try {
+            type = Class.forName(columns[0], false, loader);
+        } catch (Throwable exception) {
+            LOGGER.debug("error while loading class", exception);
+            return;
+        }
+        
+        classes.put(columns[0], type);
+        if (KIND_CLASS.equals(columns[1]) && !NONE.equals(columns[3])) {
+            supertypes.put(columns[0], LIST_SEPARATOR_REGEX.split(columns[3]));
+        }
+        
+        if (!NONE.equals(columns[2])) {
+            try {
+                factories.put(columns[0], (TypeFactory<?>) Class.forName(columns[2], true, loader).getDeclaredConstructor().newInstance());
+            } catch (Throwable exception) {
+                LOGGER.debug("error while instancing factory", exception);
+            }
+        }
+    }
+    
+    /**
+     * Maps the supertypes to their implementations in order of the classnames.
+     */
+    protected void link() {
+        Map<String, List<Class<?>>> candidates = new TreeMap<String, List<Class<?>>>();
+        List<Class<?>> list;
+        
+        for (Map.Entry<String, String[]> entry : supertypes.entrySet()) {
+            for (String supertype : entry.getValue()) {
+                if ((list = candidates.get(supertype)) == null) {
+                    candidates.put(supertype, list = new ArrayList<Class<?>>());
+                }
+                list.add(classes.get(entry.getKey()));
+            }
+        }
+        
+        for (Map.Entry<String, List<Class<?>>> entry : candidates.entrySet()) {
+            inheritanceTree.put(entry.getKey(), entry.getValue().toArray(EMPTY_CLASS_ARRAY));
+        }
+    }
+    
+    /**
+     * Indicates that every directory and jar the class scanners traverse has a registry file - the classes of a root without one aren't part
+     * of the registry, so it can't replace the class scanning then.
+     */
+    public boolean isComplete(ClassLoader loader) {
+        try {
+            for (String root : DefaultClassScanner.getRoots(loader)) {
+                if ((root.startsWith("file:") || root.startsWith("jar:")) && !roots.contains(root)) {
+                    LOGGER.debug("isComplete - no registry for {}", root);
+                    return false;
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.debug("error while listing roots", exception);
+            return false;
+        }
+        
+        return true;
+    }
+    
+    public Set<String> getRoots() {
+        return roots;
+    }
+    
+    public Map<String, Class<?>> getClasses() {
+        return classes;
+    }
+    
+    public Map<String, Class<?>[]> getInheritanceTree() {
+        return inheritanceTree;
+    }
+    
+    public Map<String, TypeFactory<?>> getFactories() {
+        return factories;
+    }
+    
+}
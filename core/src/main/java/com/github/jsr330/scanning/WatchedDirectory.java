@@ -0,0 +1,204 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.scanning;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The classes of a directory of the class path kept up to date by a {@link WatchService} - after the directory was traversed once only the
+ * class files created, modified or deleted since are read again. Every subdirectory is watched, since a watch doesn't cover nested
+ * directories.
+ */
+public class WatchedDirectory implements Closeable {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchedDirectory.class);
+    
+    /**
+     * The scanner reading the class files.
+     */
+    protected DefaultClassScanner scanner;
+    protected Path root;
+    protected WatchService watchService;
+    /**
+     * The watched directories by their watch key.
+     */
+    protected Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+    /**
+     * The classes of the directory by binary classname - the class name filter isn't applied.
+     */
+    protected TreeMap<String, ClassMetadata> classes = new TreeMap<String, ClassMetadata>();
+    
+    /**
+     * Watches the directory and reads all its classes.
+     */
+    public WatchedDirectory(DefaultClassScanner scanner, File root) throws IOException {
+        this.scanner = scanner;
+        this.root = root.toPath();
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            watch(this.root);
+        } catch (IOException exception) {
+            watchService.close();
+            throw exception;
+        }
+    }
+    
+    /**
+     * Applies the pending events - gives back {@code false} if events were lost and the directory has to be traversed again.
+     */
+    public synchronized boolean update() {
+        WatchKey key;
+        Path directory;
+        
+        while ((key = watchService.poll()) != null) {
+            directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    return false;
+                } else if (directory != null) {
+                    apply(event.kind(), directory.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+        }
+        
+        return true;
+    }
+    
+    public File getDirectory() {
+        return root.toFile();
+    }
+    
+    /**
+     * Gets the classes of the directory.
+     */
+    public synchronized List<ClassMetadata> getClasses() {
+        return new ArrayList<ClassMetadata>(classes.values());
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        watchService.close();
+        directories.clear();
+    }
+    
+    /**
+     * Applies a single event to the classes.
+     */
+    protected void apply(WatchEvent.Kind<?> kind, Path path) {
+        String name = getClassName(path);
+        
+        LOGGER.debug("apply - kind={}, path={}", kind, path);
+        if (kind == ENTRY_DELETE) {
+            if (path.toString().endsWith(".class")) {
+                classes.remove(name);
+            } else {
+                // a deleted directory reports no events for its content
+                classes.subMap(name + '.', name + '.' + Character.MAX_VALUE).clear();
+            }
+        } else if (Files.isDirectory(path)) {
+            if (kind == ENTRY_CREATE) {
+                try {
+                    watch(path);
+                } catch (IOException exception) {
+                    LOGGER.debug("error while watching directory", exception);
+                }
+            }
+        } else if (kind == ENTRY_CREATE || kind == ENTRY_MODIFY) {
+            read(path);
+        }
+    }
+    
+    /**
+     * Watches the directory and its subdirectories and reads the classes found.
+     */
+    protected void watch(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                read(file);
+                return FileVisitResult.CONTINUE;
+            }
+            
+        });
+    }
+    
+    /**
+     * Reads the class file - a class file which can't be read is removed until it's modified again.
+     */
+    protected void read(Path file) {
+        String name;
+        ClassMetadata classMetadata = null;
+        
+        if (file.toString().endsWith(".class")) {
+            name = getClassName(file);
+            try {
+                classMetadata = scanner.readMetadata(file.toFile(), name);
+            } catch (IOException exception) {
+                LOGGER.debug("error while reading class file", exception);
+            }
+            
+            if (classMetadata != null) {
+                classes.put(name, classMetadata);
+            } else {
+                classes.remove(name);
+            }
+        }
+    }
+    
+    /**
+     * Gets the binary classname of a class file or the package name of a directory.
+     */
+    protected String getClassName(Path path) {
+        String name = root.relativize(path).toString().replace(File.separatorChar, '.');
+        
+        return name.endsWith(".class") ? name.substring(0, name.length() - 6) : name;
+    }
+    
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.spi;
+
+import java.util.Map;
+
+import com.github.jsr330.Injector;
+
+/**
+ * A ClassInjector which is able to create the singletons of the known classes up front, so the first requests after an {@link Injector}
+ * update don't pay for their creation.
+ */
+public interface EagerClassInjector extends ClassInjector {
+    
+    /**
+     * Instances all singletons among the classes which aren't instanced yet - the singletons a singleton depends on are instanced before it.
+     * 
+     * @param classes All known classes.
+     * @param inheritanceTree The entire inheritance tree of all known classes.
+     * @param classLoader The class loader which loaded all the classes.
+     */
+    void instanceSingletons(Map<String, Class<?>> classes, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader);
+    
+}
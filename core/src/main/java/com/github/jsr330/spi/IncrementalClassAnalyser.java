@@ -0,0 +1,38 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.spi;
+
+import java.util.Map;
+
+import com.github.jsr330.Injector;
+
+/**
+ * A ClassAnalyser which patches the meta information of a previous analysis when the {@link Injector} is updated, instead of analysing all
+ * classes again.
+ */
+public interface IncrementalClassAnalyser<T> extends ClassAnalyser<T> {
+    
+    /**
+     * Delivers the meta information of the classes passed by patching the previous one. The previous meta information isn't modified.
+     * 
+     * @param previous The meta information of the previous analysis.
+     * @param classes All classes to analyse - including the added ones.
+     * @param added The classes which weren't part of the previous analysis.
+     * @param removed The classes of the previous analysis which aren't part of the classes anymore.
+     */
+    T analyse(T previous, Map<String, Class<?>> classes, Map<String, Class<?>> added, Map<String, Class<?>> removed);
+    
+}
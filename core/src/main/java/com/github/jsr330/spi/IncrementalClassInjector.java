@@ -0,0 +1,40 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.spi;
+
+import java.util.Map;
+
+import com.github.jsr330.Injector;
+
+/**
+ * A ClassInjector which keeps everything not affected by the classes added and removed when the {@link Injector} is updated.
+ */
+public interface IncrementalClassInjector extends ClassInjector {
+    
+    /**
+     * Invalidates all cached information depending on the classes added and removed and injects the static fields and methods of the classes
+     * added. The static members of the other classes aren't injected again.
+     * 
+     * @param classes All known classes - including the added ones.
+     * @param inheritanceTree The entire inheritance tree of all known classes.
+     * @param added The classes which are new since the last update.
+     * @param removed The classes which are gone since the last update.
+     * @param classLoader The class loader which loaded all the classes.
+     */
+    void update(Map<String, Class<?>> classes, Map<String, Class<?>[]> inheritanceTree, Map<String, Class<?>> added, Map<String, Class<?>> removed,
+            ClassLoader classLoader);
+    
+}
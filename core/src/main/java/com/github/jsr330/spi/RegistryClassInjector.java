@@ -0,0 +1,35 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.spi;
+
+import com.github.jsr330.Injector;
+import com.github.jsr330.scanning.TypeFactoryRegistry;
+
+/**
+ * A ClassInjector which uses the generated {@link TypeFactory}s of the {@link TypeFactoryRegistry} the {@link Injector} loaded on an update
+ * instead of loading the registry again.
+ */
+public interface RegistryClassInjector extends ClassInjector {
+    
+    /**
+     * Hands over the registry to use by the following static member injection or update.
+     * 
+     * @param registry The registry of the class loader or {@code null} if there is none.
+     * @param classLoader The class loader the registry was loaded from.
+     */
+    void setRegistry(TypeFactoryRegistry registry, ClassLoader classLoader);
+    
+}
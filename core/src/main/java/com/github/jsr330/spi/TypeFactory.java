@@ -0,0 +1,56 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.spi;
+
+import java.util.Map;
+
+/**
+ * A TypeFactory creates and injects the beans of one type without reflection.
+ * Implementations are generated at compile time and registered in the {@link com.github.jsr330.scanning.TypeFactoryRegistry}.
+ */
+public interface TypeFactory<T> {
+    
+    /**
+     * Gets the type created by this factory.
+     */
+    Class<T> getType();
+    
+    /**
+     * Indicates that the type is a singleton.
+     */
+    boolean isSingleton();
+    
+    /**
+     * Creates a bean and injects all its non-static members.
+     * 
+     * @param injector The class injector which resolves the dependencies.
+     * @param inheritanceTree The entire inheritance tree of all known classes.
+     * @param classLoader The class loader which loaded all the classes.
+     * 
+     * @return Returns the injected bean.
+     */
+    T create(ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader) throws Exception;
+    
+    /**
+     * Injects the static fields and methods of the type and its base classes (base class to subclass).
+     * 
+     * @param injector The class injector which resolves the dependencies.
+     * @param inheritanceTree The entire inheritance tree of all known classes.
+     * @param classLoader The class loader which loaded all the classes.
+     */
+    void injectStaticMembers(ClassInjector injector, Map<String, Class<?>[]> inheritanceTree, ClassLoader classLoader);
+    
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.inject.Inject;
+
+import com.github.jsr330.analysis.InheritanceAnalyser;
+import com.github.jsr330.spi.ClassAnalyser;
+import com.github.jsr330.spi.ClassScanner;
+
+/**
+ * Measures the bytes allocated per {@link Injector#getInstance(Class)} with an inheritance tree as large as a real classpath.
+ * Run it with {@code java -cp <test classpath> com.github.jsr330.InjectorBenchmark [tree size]} - it isn't part of the test suite.
+ */
+public class InjectorBenchmark {
+    
+    private static final int DEFAULT_TREE_SIZE = 40000;
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 200000;
+    
+    public static class Engine {
+    }
+    
+    public static class Car {
+        
+        @Inject
+        Engine engine;
+        
+    }
+    
+    public static void main(String[] args) {
+        final int treeSize = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TREE_SIZE;
+        final Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        ClassScanner scanner;
+        ClassAnalyser<Map<String, Class<?>[]>> analyser;
+        Injector injector;
+        
+        classes.put(Car.class.getName(), Car.class);
+        classes.put(Engine.class.getName(), Engine.class);
+        scanner = new ClassScanner() {
+            
+            @Override
+            public Map<String, Class<?>> scan(ClassLoader loader) {
+                return classes;
+            }
+            
+        };
+        analyser = new ClassAnalyser<Map<String, Class<?>[]>>() {
+            
+            @Override
+            public Map<String, Class<?>[]> analyse(Map<String, Class<?>> classes) {
+                Map<String, Class<?>[]> inheritance = new InheritanceAnalyser().analyse(classes);
+                
+                for (int i = 0; i < treeSize; i++) {
+                    inheritance.put("synthetic.Type" + i, new Class<?>[] { Engine.class });
+                }
+                
+                return inheritance;
+            }
+            
+        };
+        injector = new Injector(Thread.currentThread().getContextClassLoader(), scanner, analyser, null);
+        
+        System.out.println("inheritance tree entries:          " + injector.inheritance.size());
+        System.out.println("bytes per getInstance:             " + measureGetInstance(injector));
+        System.out.println("bytes per copy of inheritance tree: " + measureCopy(injector));
+    }
+    
+    protected static long measureGetInstance(Injector injector) {
+        long start;
+        
+        for (int i = 0; i < WARMUP; i++) {
+            injector.getInstance(Car.class);
+        }
+        
+        start = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            injector.getInstance(Car.class);
+        }
+        
+        return (allocatedBytes() - start) / ITERATIONS;
+    }
+    
+    protected static long measureCopy(Injector injector) {
+        int iterations = ITERATIONS / 1000;
+        long start;
+        
+        for (int i = 0; i < iterations; i++) {
+            new HashMap<String, Class<?>[]>(injector.inheritance);
+        }
+        
+        start = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            new HashMap<String, Class<?>[]>(injector.inheritance);
+        }
+        
+        return (allocatedBytes() - start) / iterations;
+    }
+    
+    protected static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+}
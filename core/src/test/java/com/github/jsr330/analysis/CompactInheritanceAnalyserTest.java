@@ -0,0 +1,90 @@
+package com.github.jsr330.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactInheritanceAnalyserTest {
+    
+    CompactInheritanceAnalyser compactInheritanceAnalyser;
+    Map<String, Class<?>> classes;
+    
+    @Before
+    public void init() {
+        compactInheritanceAnalyser = new CompactInheritanceAnalyser();
+        // need TreeMap for Sorting
+        classes = new TreeMap<String, Class<?>>();
+        for (Class<?> type : new Class<?>[] { Object.class, CharSequence.class, Runnable.class, Thread.class, String.class, StringBuilder.class,
+                Collection.class, List.class, RandomAccess.class, AbstractList.class, ArrayList.class, LinkedList.class, Vector.class }) {
+            classes.put(type.getName(), type);
+        }
+    }
+    
+    @Test
+    public void analyse_NoClasses() {
+        Map<String, Class<?>[]> inheritances = compactInheritanceAnalyser.analyse(new HashMap<String, Class<?>>());
+        
+        assertEquals(0, inheritances.size());
+        assertTrue(inheritances.isEmpty());
+        assertNull(inheritances.get(Object.class.getName()));
+    }
+    
+    @Test
+    public void analyse_SameAsInheritanceAnalyser() {
+        Map<String, Class<?>[]> expected = new InheritanceAnalyser().analyse(classes);
+        Map<String, Class<?>[]> inheritances = compactInheritanceAnalyser.analyse(classes);
+        
+        assertTrue(inheritances instanceof InheritanceGraph);
+        assertEquals(expected.size(), inheritances.size());
+        assertEquals(expected.keySet(), inheritances.keySet());
+        for (Map.Entry<String, Class<?>[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), inheritances.get(entry.getKey()));
+        }
+    }
+    
+    @Test
+    public void graph() {
+        InheritanceGraph graph = (InheritanceGraph) compactInheritanceAnalyser.analyse(classes);
+        int list = graph.indexOf(List.class);
+        
+        assertEquals(classes.size(), graph.getTypeCount());
+        assertSame(List.class, graph.getType(list));
+        assertEquals(4, graph.getSubtypeCount(list));
+        assertSame(AbstractList.class, graph.getType(graph.getSubtypeId(list, 0)));
+        assertSame(LinkedList.class, graph.getType(graph.getSubtypeId(list, 2)));
+        // the unscanned AbstractCollection is skipped
+        assertSame(AbstractList.class, graph.getType(graph.getSubtypeId(graph.indexOf(Collection.class), 0)));
+        assertEquals(3, graph.getCandidates(list).length);
+        assertSame(graph.get(List.class.getName()), graph.getCandidates(List.class));
+        assertEquals(0, graph.getSubtypeCount(graph.indexOf(Thread.class)));
+        assertNull(graph.getCandidates(graph.indexOf(Thread.class)));
+        assertFalse(graph.containsKey(Thread.class.getName()));
+        assertTrue(graph.containsKey(Runnable.class.getName()));
+        assertEquals(-1, graph.indexOf(Integer.class));
+        assertNull(graph.get(Integer.class.getName()));
+        assertNull(graph.get(List.class));
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void graph_Immutable() {
+        compactInheritanceAnalyser.analyse(classes).put(Object.class.getName(), new Class<?>[] {});
+    }
+    
+}
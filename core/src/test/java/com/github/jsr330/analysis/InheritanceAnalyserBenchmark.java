@@ -0,0 +1,258 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.analysis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.github.jsr330.spi.ClassAnalyser;
+
+/**
+ * Compares the supertype walking {@link InheritanceAnalyser} with the former pairwise {@code isAssignableFrom} analysis on synthetic classpaths
+ * and the heap retained by its result with the one of the {@link CompactInheritanceAnalyser}.
+ * Run it with {@code java -cp <test classpath> com.github.jsr330.analysis.InheritanceAnalyserBenchmark [sizes...]} - it isn't part of the
+ * test suite. The pairwise analysis is skipped above {@link #PAIRWISE_LIMIT} classes.
+ */
+public class InheritanceAnalyserBenchmark {
+    
+    private static final int[] DEFAULT_SIZES = new int[] { 1000, 10000, 100000 };
+    private static final int PAIRWISE_LIMIT = 20000;
+    private static final int RETAINED_COPIES = 10;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final String OBJECT = "java/lang/Object";
+    
+    /**
+     * Defines the synthetic classes from their class files on demand.
+     */
+    static class SyntheticClassLoader extends ClassLoader {
+        
+        private final Map<String, byte[]> classFiles = new HashMap<String, byte[]>();
+        
+        SyntheticClassLoader() {
+            super(SyntheticClassLoader.class.getClassLoader());
+        }
+        
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] classFile = classFiles.remove(name);
+            
+            if (classFile == null) {
+                throw new ClassNotFoundException(name);
+            }
+            
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+        
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int[] sizes = DEFAULT_SIZES;
+        Map<String, Class<?>> classes;
+        Map<String, Class<?>[]> walked, pairwise;
+        long start, walkTime, pairwiseTime;
+        
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        
+        for (int size : sizes) {
+            classes = generateClasspath(size, new Random(size));
+            
+            // warm up
+            new InheritanceAnalyser().analyse(classes);
+            start = System.nanoTime();
+            walked = new InheritanceAnalyser().analyse(classes);
+            walkTime = System.nanoTime() - start;
+            System.out.printf("%7d classes: supertype walk %8d ms, %d supertypes%n", size, walkTime / 1000000, walked.size());
+            
+            System.out.printf("%7d classes: retained heap %8d KB map, %d KB graph%n", size, retainedBytes(new InheritanceAnalyser(), classes) / 1024,
+                    retainedBytes(new CompactInheritanceAnalyser(), classes) / 1024);
+            
+            if (size <= PAIRWISE_LIMIT) {
+                start = System.nanoTime();
+                pairwise = analysePairwise(classes);
+                pairwiseTime = System.nanoTime() - start;
+                System.out.printf("%7d classes: pairwise      %8d ms, results equal: %b%n", size, pairwiseTime / 1000000, isEqual(walked, pairwise));
+            } else {
+                System.out.printf("%7d classes: pairwise      skipped%n", size);
+            }
+        }
+    }
+    
+    /**
+     * Measures the heap retained by the result of the analyser (roughly - based on the used heap after garbage collection, averaged over several
+     * results held at once).
+     */
+    protected static long retainedBytes(ClassAnalyser<Map<String, Class<?>[]>> analyser, Map<String, Class<?>> classes) {
+        List<Map<String, Class<?>[]>> results = new ArrayList<Map<String, Class<?>[]>>();
+        long before, after;
+        
+        before = usedHeap();
+        for (int i = 0; i < RETAINED_COPIES; i++) {
+            results.add(analyser.analyse(classes));
+        }
+        after = usedHeap();
+        
+        return results.isEmpty() ? 0 : (after - before) / RETAINED_COPIES;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    /**
+     * Generates interfaces (10%), abstract classes (10%) and concrete classes - each type extends an earlier one and implements up to two
+     * earlier interfaces.
+     */
+    protected static Map<String, Class<?>> generateClasspath(int size, Random random) throws IOException, ClassNotFoundException {
+        SyntheticClassLoader loader = new SyntheticClassLoader();
+        Map<String, Class<?>> classes = new LinkedHashMap<String, Class<?>>();
+        List<String> interfaces = new ArrayList<String>();
+        List<String> superclasses = new ArrayList<String>();
+        List<String> implemented = new ArrayList<String>();
+        String name, superclass;
+        int kind, access;
+        
+        for (int i = 0; i < size; i++) {
+            name = "synthetic/Type" + i;
+            kind = random.nextInt(10);
+            implemented.clear();
+            for (int j = random.nextInt(3); j > 0 && !interfaces.isEmpty(); j--) {
+                if (!implemented.contains(superclass = interfaces.get(random.nextInt(interfaces.size())))) {
+                    implemented.add(superclass);
+                }
+            }
+            
+            if (kind == 0) {
+                access = ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT;
+                superclass = OBJECT;
+                interfaces.add(name);
+            } else {
+                access = ACC_PUBLIC | ACC_SUPER | (kind == 1 ? ACC_ABSTRACT : 0);
+                superclass = superclasses.isEmpty() || random.nextInt(4) == 0 ? OBJECT : superclasses.get(random.nextInt(superclasses.size()));
+                superclasses.add(name);
+            }
+            
+            loader.classFiles.put(name.replace('/', '.'), createClassFile(name, access, superclass, implemented.toArray(new String[implemented.size()])));
+        }
+        
+        for (int i = 0; i < size; i++) {
+            name = "synthetic.Type" + i;
+            classes.put(name, loader.loadClass(name));
+        }
+        
+        return classes;
+    }
+    
+    /**
+     * Creates a class file without members.
+     */
+    protected static byte[] createClassFile(String name, int access, String superclass, String[] interfaces) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        String[] names = new String[interfaces.length + 2];
+        
+        names[0] = name;
+        names[1] = superclass;
+        System.arraycopy(interfaces, 0, names, 2, interfaces.length);
+        
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(50);
+        out.writeShort(names.length * 2 + 1);
+        // entry 2i + 1 is the name and entry 2i + 2 the class of names[i]
+        for (int i = 0; i < names.length; i++) {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(names[i]);
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(2 * i + 1);
+        }
+        out.writeShort(access);
+        out.writeShort(2);
+        out.writeShort(4);
+        out.writeShort(interfaces.length);
+        for (int i = 0; i < interfaces.length; i++) {
+            out.writeShort(2 * (i + 2) + 2);
+        }
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.flush();
+        
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * The former analysis comparing every class with every other.
+     */
+    protected static Map<String, Class<?>[]> analysePairwise(Map<String, Class<?>> classes) {
+        Map<String, Class<?>[]> inheritances = new HashMap<String, Class<?>[]>();
+        List<Class<?>> classList = new ArrayList<Class<?>>();
+        Class<?>[] types = classes.values().toArray(new Class<?>[classes.size()]);
+        
+        for (Class<?> supertype : types) {
+            classList.clear();
+            for (Class<?> type : types) {
+                if (supertype != type && supertype.isAssignableFrom(type) && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+                    classList.add(type);
+                }
+            }
+            if (!classList.isEmpty()) {
+                inheritances.put(supertype.getName(), classList.toArray(new Class<?>[classList.size()]));
+            }
+        }
+        
+        return inheritances;
+    }
+    
+    private static boolean isEqual(Map<String, Class<?>[]> first, Map<String, Class<?>[]> second) {
+        if (!first.keySet().equals(second.keySet())) {
+            return false;
+        }
+        
+        for (Map.Entry<String, Class<?>[]> entry : first.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), second.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+}
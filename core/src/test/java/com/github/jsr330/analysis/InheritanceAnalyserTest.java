@@ -1,14 +1,26 @@
 package com.github.jsr330.analysis;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
+import javax.inject.Inject;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.Injector;
+import com.github.jsr330.scanning.BytecodeClassScanner;
 
 public class InheritanceAnalyserTest {
     
@@ -67,4 +79,53 @@ public class InheritanceAnalyserTest {
         assertEquals(Thread.class, inheritances.get(Object.class.getName())[1]);
     }
     
+    @Test
+    public void analyse_Patched() {
+        Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        Map<String, Class<?>> added = new HashMap<String, Class<?>>();
+        Map<String, Class<?>> removed = new HashMap<String, Class<?>>();
+        Map<String, Class<?>[]> previous;
+        Map<String, Class<?>[]> inheritances;
+        
+        classes.put(CharSequence.class.getName(), CharSequence.class);
+        classes.put(Runnable.class.getName(), Runnable.class);
+        classes.put(Thread.class.getName(), Thread.class);
+        classes.put(StringBuilder.class.getName(), StringBuilder.class);
+        previous = inheritanceAnalyser.analyse(classes);
+        
+        added.put(String.class.getName(), String.class);
+        classes.putAll(added);
+        inheritances = inheritanceAnalyser.analyse(previous, classes, added, removed);
+        
+        assertEquals(inheritanceAnalyser.analyse(classes).keySet(), inheritances.keySet());
+        assertArrayEquals(new Class<?>[] { String.class, StringBuilder.class }, inheritances.get(CharSequence.class.getName()));
+        assertSame(previous.get(Runnable.class.getName()), inheritances.get(Runnable.class.getName()));
+        assertEquals(1, previous.get(CharSequence.class.getName()).length);
+        
+        added.clear();
+        removed.put(Thread.class.getName(), classes.remove(Thread.class.getName()));
+        removed.put(StringBuilder.class.getName(), classes.remove(StringBuilder.class.getName()));
+        inheritances = inheritanceAnalyser.analyse(inheritances, classes, added, removed);
+        
+        assertFalse(inheritances.containsKey(Runnable.class.getName()));
+        assertArrayEquals(new Class<?>[] { String.class }, inheritances.get(CharSequence.class.getName()));
+    }
+    
+    @Test
+    public void analyse_ScannedClasses() {
+        ClassLoader loader = new URLClassLoader(new URL[] { Injector.class.getProtectionDomain().getCodeSource().getLocation(),
+                Inject.class.getProtectionDomain().getCodeSource().getLocation(),
+                LoggerFactory.class.getProtectionDomain().getCodeSource().getLocation() }, null);
+        Map<String, Class<?>> classes = new BytecodeClassScanner().scan(loader);
+        Map<String, Class<?>[]> inheritances = inheritanceAnalyser.analyse(classes);
+        Map<String, Class<?>[]> expected = inheritanceAnalyser.analyse(new TreeMap<String, Class<?>>(classes));
+        
+        assertTrue(inheritances instanceof LazyInheritanceTree);
+        assertEquals(expected.keySet(), inheritances.keySet());
+        for (String name : expected.keySet()) {
+            assertArrayEquals(expected.get(name), inheritances.get(name));
+        }
+        assertSame(inheritances.get(Object.class.getName()), inheritances.get(Object.class.getName()));
+    }
+    
 }
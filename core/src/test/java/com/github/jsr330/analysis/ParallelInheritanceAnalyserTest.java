@@ -0,0 +1,76 @@
+package com.github.jsr330.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelInheritanceAnalyserTest {
+    
+    ForkJoinPool pool;
+    ParallelInheritanceAnalyser parallelInheritanceAnalyser;
+    
+    @Before
+    public void init() {
+        pool = new ForkJoinPool(4);
+        parallelInheritanceAnalyser = new ParallelInheritanceAnalyser(pool, 1);
+    }
+    
+    @After
+    public void shutdown() {
+        pool.shutdown();
+    }
+    
+    @Test
+    public void init_SharesDefaultPool() {
+        assertSame(ParallelInheritanceAnalyser.getSharedPool(), new ParallelInheritanceAnalyser().getPool());
+        assertSame(new ParallelInheritanceAnalyser().getPool(), new ParallelInheritanceAnalyser().getPool());
+        assertSame(pool, parallelInheritanceAnalyser.getPool());
+    }
+    
+    @Test
+    public void analyse_NoClasses() {
+        Map<String, Class<?>[]> inheritances = parallelInheritanceAnalyser.analyse(new HashMap<String, Class<?>>());
+        
+        assertNotNull(inheritances);
+        assertEquals(0, inheritances.size());
+    }
+    
+    @Test
+    public void analyse_SameAsSequential() {
+        Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        Map<String, Class<?>[]> expected;
+        Map<String, Class<?>[]> inheritances;
+        
+        for (Class<?> type : new Class<?>[] { Object.class, CharSequence.class, Runnable.class, Thread.class, String.class, StringBuilder.class,
+                Collection.class, List.class, RandomAccess.class, AbstractList.class, ArrayList.class, LinkedList.class, Vector.class }) {
+            classes.put(type.getName(), type);
+        }
+        
+        expected = new InheritanceAnalyser().analyse(classes);
+        inheritances = parallelInheritanceAnalyser.analyse(classes);
+        
+        assertEquals(expected.keySet(), inheritances.keySet());
+        for (Map.Entry<String, Class<?>[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), inheritances.get(entry.getKey()));
+        }
+        assertArrayEquals(new Class<?>[] { ArrayList.class, LinkedList.class, Vector.class }, inheritances.get(List.class.getName()));
+    }
+    
+}
@@ -0,0 +1,159 @@
+package com.github.jsr330.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveClassInjectorTest {
+    
+    @Singleton
+    public static class Engine {
+    }
+    
+    public static class Wheel {
+    }
+    
+    public static class Seat {
+        
+        @Inject
+        Seat() {
+            throw new IllegalStateException();
+        }
+        
+    }
+    
+    public static class Base {
+        
+        List<String> order = new ArrayList<String>();
+        @Inject
+        Wheel baseWheel;
+        
+        @Inject
+        void base(Wheel wheel) {
+            order.add("base");
+        }
+        
+    }
+    
+    public static class Car extends Base {
+        
+        final Engine engine;
+        final Wheel wheel;
+        @Inject
+        Wheel frontWheel;
+        @Inject
+        Seat seat;
+        Wheel backWheel;
+        Engine otherEngine;
+        
+        @Inject
+        Car(Engine engine, Wheel wheel) {
+            this.engine = engine;
+            this.wheel = wheel;
+        }
+        
+        @Inject
+        void car(Wheel backWheel, Engine otherEngine) {
+            order.add("car");
+            this.backWheel = backWheel;
+            this.otherEngine = otherEngine;
+        }
+        
+    }
+    
+    AdaptiveClassInjector adaptiveClassInjector;
+    Map<String, Class<?>[]> inheritanceTree;
+    ClassLoader classLoader;
+    
+    @Before
+    public void init() {
+        inheritanceTree = new HashMap<String, Class<?>[]>();
+        classLoader = Thread.currentThread().getContextClassLoader();
+        adaptiveClassInjector = new AdaptiveClassInjector(2);
+    }
+    
+    @Test
+    public void defaultConstructor() {
+        assertEquals(AdaptiveClassInjector.DEFAULT_THRESHOLD, new AdaptiveClassInjector().getThreshold());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_FusesAfterThreshold() {
+        Car car;
+        Engine engine = null;
+        
+        for (int i = 0; i < 4; i++) {
+            car = adaptiveClassInjector.instance(Car.class, (Map) inheritanceTree, classLoader, null, null);
+            
+            assertEquals(i >= 1, ((AdaptiveInjectionPlan) adaptiveClassInjector.plans.get(Car.class)).isFused());
+            assertNotNull(car.engine);
+            assertNotNull(car.wheel);
+            assertNotNull(car.baseWheel);
+            assertNotNull(car.frontWheel);
+            assertNotNull(car.backWheel);
+            assertNotSame(car.wheel, car.backWheel);
+            assertSame(car.engine, car.otherEngine);
+            // the failing seat doesn't prevent the other members from being injected
+            assertNull(car.seat);
+            assertEquals("[base, car]", car.order.toString());
+            if (engine != null) {
+                assertSame(engine, car.engine);
+            }
+            engine = car.engine;
+        }
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_FailingConstructor() {
+        for (int i = 0; i < 4; i++) {
+            assertNull(adaptiveClassInjector.instance(Seat.class, (Map) inheritanceTree, classLoader, null, null));
+        }
+        assertTrue(((AdaptiveInjectionPlan) adaptiveClassInjector.plans.get(Seat.class)).isFused());
+    }
+    
+    @Test
+    public void fuse_ReflectionInvokers() {
+        DefaultClassInjector defaultClassInjector = new DefaultClassInjector();
+        TypeContainer typeContainer = defaultClassInjector.generateTypeContainer(Wheel.class, new HashMap<String, Class<? extends Wheel>[]>(), null,
+                classLoader);
+        InjectionPlan plan = defaultClassInjector.compileInjectionPlan(typeContainer, new HashMap<String, Class<? extends Wheel>[]>(), classLoader);
+        
+        assertNull(new AdaptiveInjectionPlan(plan, 1).fuse());
+        assertFalse(new AdaptiveInjectionPlan(plan, 1).isFused());
+    }
+    
+    @Test
+    public void instance_StopsCountingUnfusablePlan() throws Exception {
+        DefaultClassInjector defaultClassInjector = new DefaultClassInjector();
+        TypeContainer typeContainer = defaultClassInjector.generateTypeContainer(Wheel.class, new HashMap<String, Class<? extends Wheel>[]>(), null,
+                classLoader);
+        AdaptiveInjectionPlan plan = new AdaptiveInjectionPlan(defaultClassInjector.compileInjectionPlan(typeContainer,
+                new HashMap<String, Class<? extends Wheel>[]>(), classLoader), 2);
+        
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(plan.instance(defaultClassInjector, inheritanceTree, classLoader));
+        }
+        
+        assertTrue(plan.isUnfusable());
+        assertFalse(plan.isFused());
+        assertEquals(2, plan.executions.get());
+    }
+    
+}
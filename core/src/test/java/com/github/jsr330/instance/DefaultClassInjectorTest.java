@@ -1,12 +1,19 @@
 package com.github.jsr330.instance;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -14,10 +21,26 @@ import static org.mockito.Mockito.when;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -26,8 +49,13 @@ import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.github.jsr330.analysis.CompactInheritanceAnalyser;
+import com.github.jsr330.analysis.InheritanceAnalyser;
+import com.github.jsr330.scanning.TypeFactoryRegistry;
+import com.github.jsr330.spi.ClassInjector;
 import com.github.jsr330.spi.TypeConfig;
 import com.github.jsr330.spi.TypeDeterminator;
+import com.github.jsr330.spi.TypeFactory;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DefaultClassInjectorTest {
@@ -40,6 +68,144 @@ public class DefaultClassInjectorTest {
         
     }
     
+    public interface Service {
+    }
+    
+    public static class ServiceImpl implements Service {
+    }
+    
+    public static class Holder {
+        
+        @Inject
+        Bean bean;
+        
+    }
+    
+    public static class Qualified {
+        
+        @Named("service")
+        Service first;
+        @Named("service")
+        Service second;
+        
+    }
+    
+    @Singleton
+    public static class SlowSingleton {
+        
+        static final AtomicInteger CONSTRUCTIONS = new AtomicInteger();
+        static final AtomicInteger INJECTIONS = new AtomicInteger();
+        
+        public SlowSingleton() throws InterruptedException {
+            CONSTRUCTIONS.incrementAndGet();
+            Thread.sleep(20);
+        }
+        
+        @Inject
+        void injectionPoint() {
+            INJECTIONS.incrementAndGet();
+        }
+        
+    }
+    
+    public static class StaticBase {
+        
+        static final List<String> ORDER = Collections.synchronizedList(new ArrayList<String>());
+        static final AtomicInteger ACTIVE = new AtomicInteger();
+        static final AtomicInteger OVERLAPS = new AtomicInteger();
+        
+        @Inject
+        static void injectBase() throws InterruptedException {
+            if (ACTIVE.incrementAndGet() > 1) {
+                OVERLAPS.incrementAndGet();
+            }
+            Thread.sleep(20);
+            ORDER.add("base");
+            ACTIVE.decrementAndGet();
+        }
+        
+    }
+    
+    public static class StaticSub extends StaticBase {
+        
+        @Inject
+        static void injectSub() {
+            ORDER.add("sub");
+        }
+        
+    }
+    
+    public static class StaticSub2 extends StaticBase {
+        
+        @Inject
+        static void injectSub2() {
+            ORDER.add("sub");
+        }
+        
+    }
+    
+    public static class StaticSub3 extends StaticBase {
+        
+        @Inject
+        static void injectSub3() {
+            ORDER.add("sub");
+        }
+        
+    }
+    
+    @Singleton
+    public static class EagerLeaf {
+        
+        static final List<String> CREATED = Collections.synchronizedList(new ArrayList<String>());
+        
+        public EagerLeaf() {
+            CREATED.add("leaf");
+        }
+        
+    }
+    
+    @Singleton
+    public static class EagerRoot {
+        
+        @Inject
+        public EagerRoot(EagerLeaf leaf) {
+            EagerLeaf.CREATED.add("root");
+        }
+        
+    }
+    
+    @Singleton
+    public static class CycleA {
+        
+        @Inject
+        CycleB cycleB;
+        
+    }
+    
+    @Singleton
+    public static class CycleB {
+        
+        @Inject
+        CycleA cycleA;
+        
+    }
+    
+    public static class PrototypeCycleA {
+        
+        @Inject
+        public PrototypeCycleA(PrototypeCycleB b) {
+        }
+        
+    }
+    
+    public static class PrototypeCycleB {
+        
+        @Inject
+        public PrototypeCycleB(PrototypeCycleA a) {
+        }
+        
+    }
+    
     DefaultClassInjector defaultClassInjector;
     @Mock
     TypeDeterminator typeDeterminator;
@@ -118,4 +284,385 @@ public class DefaultClassInjectorTest {
     
     // TODO: test instance
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void injectStaticMembers_SkipsClassesWithoutStaticInjection() {
+        classes.put(Bean.class.getName(), Bean.class);
+        classes.put(Holder.class.getName(), Holder.class);
+        classes.put(Service.class.getName(), Service.class);
+        classes.put(ServiceImpl.class.getName(), ServiceImpl.class);
+        
+        defaultClassInjector.injectStaticMembers(classes, inheritanceTree, classLoader);
+        
+        verify(defaultClassInjector).generateTypeContainer(eq(Bean.class), any(Map.class), (Annotation) eq(null), same(classLoader));
+        verify(defaultClassInjector, times(1)).generateTypeContainer(any(Class.class), any(Map.class), (Annotation) eq(null), same(classLoader));
+        assertEquals(1, defaultClassInjector.types.size());
+    }
+    
+    @Test
+    public void groupBySuperclass() {
+        Map<Class<?>, List<Class<?>>> groups = defaultClassInjector.groupBySuperclass(Arrays.<Class<?>> asList(StaticSub.class, Bean.class,
+                StaticBase.class));
+        
+        assertEquals(Arrays.<Class<?>> asList(Bean.class, StaticBase.class), groups.get(null));
+        assertEquals(Arrays.<Class<?>> asList(StaticSub.class), groups.get(StaticBase.class));
+        assertEquals(2, groups.size());
+    }
+    
+    @Test
+    public void injectStaticMembers_InParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        
+        classes = new TreeMap<String, Class<?>>();
+        // the subclass comes first by name
+        classes.put("a", StaticSub.class);
+        classes.put("b", StaticBase.class);
+        classes.put("c", Bean.class);
+        classes.put("d", StaticSub2.class);
+        classes.put("e", StaticSub3.class);
+        StaticBase.ORDER.clear();
+        StaticBase.OVERLAPS.set(0);
+        defaultClassInjector.setPool(pool);
+        try {
+            defaultClassInjector.injectStaticMembers(classes, inheritanceTree, classLoader);
+        } finally {
+            pool.shutdown();
+        }
+        
+        // the base is injected once before its subclasses, which don't inject it again
+        assertEquals(Arrays.asList("base", "sub", "sub", "sub"), StaticBase.ORDER);
+        assertEquals(0, StaticBase.OVERLAPS.get());
+        verify(defaultClassInjector).generateTypeContainer(eq(Bean.class), any(Map.class), (Annotation) eq(null), same(classLoader));
+    }
+    
+    @Test
+    public void instanceSingletons_InDependencyOrder() {
+        classes = new TreeMap<String, Class<?>>();
+        classes.put("a", EagerRoot.class);
+        classes.put("b", EagerLeaf.class);
+        classes.put("c", Holder.class);
+        EagerLeaf.CREATED.clear();
+        
+        defaultClassInjector.instanceSingletons(classes, inheritanceTree, classLoader);
+        
+        assertEquals(Arrays.asList("leaf", "root"), EagerLeaf.CREATED);
+        assertNotNull(defaultClassInjector.singletons.get(EagerRoot.class).get());
+        assertNotNull(defaultClassInjector.singletons.get(EagerLeaf.class).get());
+        assertNull(defaultClassInjector.singletons.get(Holder.class).get());
+    }
+    
+    @Test
+    public void instanceSingletons_InParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        
+        classes = new TreeMap<String, Class<?>>();
+        classes.put("a", EagerRoot.class);
+        classes.put("b", EagerLeaf.class);
+        EagerLeaf.CREATED.clear();
+        defaultClassInjector.setPool(pool);
+        try {
+            defaultClassInjector.instanceSingletons(classes, inheritanceTree, classLoader);
+        } finally {
+            pool.shutdown();
+        }
+        
+        assertEquals(Arrays.asList("leaf", "root"), EagerLeaf.CREATED);
+    }
+    
+    @Test
+    public void instanceSingletons_SkipsCycles() {
+        classes.put(CycleA.class.getName(), CycleA.class);
+        classes.put(CycleB.class.getName(), CycleB.class);
+        
+        defaultClassInjector.instanceSingletons(classes, inheritanceTree, classLoader);
+        
+        assertNull(defaultClassInjector.singletons.get(CycleA.class).get());
+        assertNull(defaultClassInjector.singletons.get(CycleB.class).get());
+        assertTrue(defaultClassInjector.getDependencyGraph().isCyclic(CycleA.class));
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test(expected = IllegalStateException.class)
+    public void instance_RejectsCycle() {
+        classes.put(CycleA.class.getName(), CycleA.class);
+        classes.put(CycleB.class.getName(), CycleB.class);
+        defaultClassInjector.instanceSingletons(classes, inheritanceTree, classLoader);
+        
+        defaultClassInjector.instance(CycleA.class, (Map) inheritanceTree, classLoader, null, null);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_RejectsPrototypeCycle() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                defaultClassInjector.instance(PrototypeCycleA.class, (Map) inheritanceTree, classLoader, null, null);
+                fail();
+            } catch (DependencyCycleException exception) {
+                assertEquals(Arrays.<Class<?>> asList(PrototypeCycleA.class, PrototypeCycleB.class, PrototypeCycleA.class), exception.getCycle());
+            }
+        }
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_RejectsMemberCycle() {
+        try {
+            defaultClassInjector.instance(CycleB.class, (Map) inheritanceTree, classLoader, null, null);
+            fail();
+        } catch (DependencyCycleException exception) {
+            assertEquals(Arrays.<Class<?>> asList(CycleB.class, CycleA.class, CycleB.class), exception.getCycle());
+        }
+        assertNull(defaultClassInjector.singletons.get(CycleB.class).get());
+        // the thread doesn't keep the types of the failed attempt
+        assertTrue(defaultClassInjector.constructing.get().isEmpty());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void injectStaticMembers_DoesntCompilePlans() {
+        classes.put(Holder.class.getName(), Holder.class);
+        classes.put(ServiceImpl.class.getName(), ServiceImpl.class);
+        defaultClassInjector.setTypeConfig(typeConfig);
+        
+        defaultClassInjector.injectStaticMembers(classes, inheritanceTree, classLoader);
+        defaultClassInjector.update(classes, inheritanceTree, new HashMap<String, Class<?>>(), new HashMap<String, Class<?>>(), classLoader);
+        
+        verify(defaultClassInjector, never()).compileInjectionPlan(any(TypeContainer.class), any(Map.class), same(classLoader));
+        verify(typeConfig, never()).getTypeContainer(any(ClassInjector.class), any(Class.class), any(Map.class), any(Annotation.class), same(classLoader));
+    }
+    
+    @Test
+    public void loadTypeFactories_UsesRegistryOnce() {
+        TypeFactoryRegistry registry = new TypeFactoryRegistry();
+        Map<String, TypeFactory<?>> factories;
+        
+        defaultClassInjector.setRegistry(registry, classLoader);
+        factories = defaultClassInjector.loadTypeFactories(classLoader);
+        
+        assertSame(registry.getFactories(), factories);
+        assertNotSame(factories, defaultClassInjector.loadTypeFactories(classLoader));
+    }
+    
+    @Test
+    public void loadTypeFactories_IgnoresRegistryOfOtherClassLoader() {
+        TypeFactoryRegistry registry = new TypeFactoryRegistry();
+        
+        defaultClassInjector.setRegistry(registry, new URLClassLoader(new URL[0]));
+        
+        assertNotSame(registry.getFactories(), defaultClassInjector.loadTypeFactories(classLoader));
+    }
+    
+    @Test
+    public void createDependencyGraph() {
+        DependencyGraph graph = defaultClassInjector.createDependencyGraph(Arrays.<Class<?>> asList(EagerRoot.class, Holder.class), inheritanceTree,
+                classLoader);
+        
+        assertEquals(Arrays.<Class<?>> asList(EagerLeaf.class), graph.getDependencies(EagerRoot.class));
+        assertEquals(Arrays.<Class<?>> asList(Bean.class), graph.getDependencies(Holder.class));
+        assertEquals(1, graph.getDepth(EagerRoot.class));
+        assertEquals(0, graph.getDepth(Bean.class));
+        assertEquals(4, graph.getTypes().size());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_CompilesPlanOnce() {
+        Holder first = defaultClassInjector.instance(Holder.class, (Map) inheritanceTree, classLoader, null, null);
+        Holder second = defaultClassInjector.instance(Holder.class, (Map) inheritanceTree, classLoader, null, null);
+        
+        assertNotNull(first.bean);
+        assertNotNull(second.bean);
+        assertNotSame(first, second);
+        // one plan for Holder and one for Bean
+        verify(defaultClassInjector, times(2)).compileInjectionPlan(any(TypeContainer.class), any(Map.class), same(classLoader));
+        verify(defaultClassInjector, times(1)).generateTypeContainer(eq(Holder.class), any(Map.class), (Annotation) eq(null), same(classLoader));
+        verify(defaultClassInjector, times(1)).generateTypeContainer(eq(Bean.class), any(Map.class), (Annotation) eq(null), same(classLoader));
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_ConcurrentlyCompilesPlanOnce() throws Exception {
+        final AtomicInteger compilations = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final DefaultClassInjector injector = new DefaultClassInjector() {
+            
+            @Override
+            protected <T> InjectionPlan compileInjectionPlan(TypeContainer typeContainer, Map<String, Class<? extends T>[]> inheritanceTree,
+                    ClassLoader classLoader) {
+                compilations.incrementAndGet();
+                return super.compileInjectionPlan(typeContainer, inheritanceTree, classLoader);
+            }
+            
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        Future<Holder>[] futures = new Future[64];
+        
+        try {
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(new Callable<Holder>() {
+                    
+                    @Override
+                    public Holder call() throws Exception {
+                        start.await();
+                        return injector.instance(Holder.class, (Map) inheritanceTree, classLoader, null, null);
+                    }
+                    
+                });
+            }
+            start.countDown();
+            
+            for (Future<Holder> future : futures) {
+                assertNotNull(future.get().bean);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        // one plan for Holder and one for Bean
+        assertEquals(2, compilations.get());
+        assertEquals(2, injector.plans.size());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_ConcurrentlyCreatesSingletonOnce() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final DefaultClassInjector injector = new DefaultClassInjector();
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        Future<SlowSingleton>[] futures = new Future[64];
+        
+        try {
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(new Callable<SlowSingleton>() {
+                    
+                    @Override
+                    public SlowSingleton call() throws Exception {
+                        start.await();
+                        return injector.instance(SlowSingleton.class, (Map) inheritanceTree, classLoader, null, null);
+                    }
+                    
+                });
+            }
+            start.countDown();
+            
+            for (Future<SlowSingleton> future : futures) {
+                assertSame(futures[0].get(), future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        assertNotNull(futures[0].get());
+        assertEquals(1, SlowSingleton.CONSTRUCTIONS.get());
+        assertEquals(1, SlowSingleton.INJECTIONS.get());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_SeparatesClassLoaders() throws Exception {
+        URLClassLoader otherLoader = new URLClassLoader(new URL[] { Bean.class.getProtectionDomain().getCodeSource().getLocation() }, null);
+        Class<?> otherBean = otherLoader.loadClass(Bean.class.getName());
+        
+        assertNotSame(Bean.class, otherBean);
+        assertSame(Bean.class, defaultClassInjector.instance(Bean.class, (Map) inheritanceTree, classLoader, null, null).getClass());
+        assertSame(otherBean, defaultClassInjector.instance(otherBean, (Map) inheritanceTree, otherLoader, null, null).getClass());
+        assertEquals(2, defaultClassInjector.plans.size());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_CachesResolutionsUntilUpdate() {
+        defaultClassInjector = new DefaultClassInjector(typeDeterminator);
+        when(typeDeterminator.determineClass(same(Bean.class), any(Class[].class), (Annotation) eq(null), same(classLoader))).thenReturn((Class) Bean.class);
+        
+        defaultClassInjector.instance(Bean.class, (Map) inheritanceTree, classLoader, null, null);
+        defaultClassInjector.instance(Bean.class, (Map) inheritanceTree, classLoader, null, null);
+        verify(typeDeterminator, times(1)).determineClass(same(Bean.class), any(Class[].class), (Annotation) eq(null), same(classLoader));
+        
+        defaultClassInjector.injectStaticMembers(classes, inheritanceTree, classLoader);
+        defaultClassInjector.instance(Bean.class, (Map) inheritanceTree, classLoader, null, null);
+        verify(typeDeterminator, times(2)).determineClass(same(Bean.class), any(Class[].class), (Annotation) eq(null), same(classLoader));
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void determineClass_MatchesEqualQualifiers() throws Exception {
+        Annotation first = Qualified.class.getDeclaredField("first").getAnnotation(Named.class);
+        Annotation second = Qualified.class.getDeclaredField("second").getAnnotation(Named.class);
+        Class[] candidates = new Class[] { ServiceImpl.class };
+        
+        defaultClassInjector = new DefaultClassInjector(typeDeterminator);
+        when(typeDeterminator.determineClass(same(Service.class), any(Class[].class), any(Annotation.class), same(classLoader))).thenReturn((Class) ServiceImpl.class);
+        
+        assertNotSame(first, second);
+        defaultClassInjector.determineClass(Service.class, candidates, first, classLoader);
+        defaultClassInjector.determineClass(Service.class, candidates, second, classLoader);
+        defaultClassInjector.determineClass(Service.class, candidates, null, classLoader);
+        defaultClassInjector.determineClass(Service.class, candidates, null, classLoader);
+        verify(typeDeterminator, times(2)).determineClass(same(Service.class), any(Class[].class), any(Annotation.class), same(classLoader));
+        
+        defaultClassInjector.determineClass(Service.class, candidates.clone(), second, classLoader);
+        verify(typeDeterminator, times(3)).determineClass(same(Service.class), any(Class[].class), any(Annotation.class), same(classLoader));
+        assertEquals(2, defaultClassInjector.resolutions.get(Service.class).length);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_CachesDependencyTargetsUntilUpdate() {
+        Map<String, Class<?>> none = new HashMap<String, Class<?>>();
+        
+        defaultClassInjector.instance(Holder.class, (Map) inheritanceTree, classLoader, null, null);
+        assertNotNull(defaultClassInjector.instance(Holder.class, (Map) inheritanceTree, classLoader, null, null).bean);
+        verify(defaultClassInjector, times(1)).getTarget(any(Dependency.class), any(Map.class), same(classLoader));
+        verify(defaultClassInjector, never()).instance(eq(Bean.class), any(Map.class), same(classLoader), any(Class[].class), any(Annotation.class));
+        
+        defaultClassInjector.update(classes, inheritanceTree, none, none, classLoader);
+        assertNotNull(defaultClassInjector.instance(Holder.class, (Map) inheritanceTree, classLoader, null, null).bean);
+        verify(defaultClassInjector, times(2)).getTarget(any(Dependency.class), any(Map.class), same(classLoader));
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_WithInheritanceGraph() {
+        classes.put(Service.class.getName(), Service.class);
+        classes.put(ServiceImpl.class.getName(), ServiceImpl.class);
+        inheritanceTree = new CompactInheritanceAnalyser().analyse(classes);
+        
+        assertSame(ServiceImpl.class, defaultClassInjector.instance(Service.class, (Map) inheritanceTree, classLoader, null, null).getClass());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void update_InvalidatesAffectedPlansOnly() {
+        Map<String, Class<?>> added = new HashMap<String, Class<?>>();
+        Map<String, Class<?>> removed = new HashMap<String, Class<?>>();
+        
+        classes.put(Bean.class.getName(), Bean.class);
+        classes.put(Holder.class.getName(), Holder.class);
+        classes.put(Service.class.getName(), Service.class);
+        defaultClassInjector.injectStaticMembers(classes, inheritanceTree, classLoader);
+        defaultClassInjector.instance(Holder.class, (Map) inheritanceTree, classLoader, null, null);
+        assertEquals(2, defaultClassInjector.plans.size());
+        
+        added.put(ServiceImpl.class.getName(), ServiceImpl.class);
+        classes.putAll(added);
+        inheritanceTree = new InheritanceAnalyser().analyse(classes);
+        defaultClassInjector.update(classes, inheritanceTree, added, removed, classLoader);
+        
+        assertTrue(defaultClassInjector.plans.containsKey(Holder.class));
+        assertTrue(defaultClassInjector.plans.containsKey(Bean.class));
+        // the class added has no static injection points
+        verify(defaultClassInjector, never()).generateTypeContainer(eq(ServiceImpl.class), any(Map.class), (Annotation) eq(null), same(classLoader));
+        assertSame(ServiceImpl.class, defaultClassInjector.instance(Service.class, (Map) inheritanceTree, classLoader, null, null).getClass());
+        
+        added.clear();
+        removed.put(Bean.class.getName(), classes.remove(Bean.class.getName()));
+        defaultClassInjector.update(classes, inheritanceTree, added, removed, classLoader);
+        
+        assertFalse(defaultClassInjector.plans.containsKey(Holder.class));
+        assertFalse(defaultClassInjector.plans.containsKey(Bean.class));
+        assertTrue(defaultClassInjector.plans.containsKey(ServiceImpl.class));
+    }
+    
 }
@@ -1,11 +1,14 @@
 package com.github.jsr330.instance;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
+import javax.inject.Named;
 import javax.inject.Qualifier;
 
 import org.junit.Before;
@@ -27,6 +30,15 @@ public class DefaultTypeDeterminatorTest {
     public class MultiBean extends Bean {
     }
     
+    public class SpareTire {
+    }
+    
+    public class SpareWheel {
+    }
+    
+    public class Sparse {
+    }
+    
     DefaultTypeDeterminator defaultTypeDeterminator;
     Class<CharSequence> type;
     Class<? extends CharSequence>[] candidates;
@@ -73,4 +85,45 @@ public class DefaultTypeDeterminatorTest {
         assertEquals(SingleBean.class, defaultTypeDeterminator.determineClass(type, candidates, anno, classLoader));
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void determineClass_Indexed() {
+        Class<?>[] indexed = new Class<?>[DefaultTypeDeterminator.INDEX_THRESHOLD + 4];
+        
+        for (int i = 0; i < indexed.length; i++) {
+            indexed[i] = MultiBean.class;
+        }
+        indexed[3] = Sparse.class;
+        indexed[5] = SpareWheel.class;
+        indexed[7] = SpareTire.class;
+        indexed[9] = SingleBean.class;
+        candidates = (Class<? extends CharSequence>[]) indexed;
+        
+        assertEquals(SpareWheel.class, defaultTypeDeterminator.determineClass(type, candidates, named("spare"), classLoader));
+        assertEquals(SpareTire.class, defaultTypeDeterminator.determineClass(type, candidates, named("SPARETI"), classLoader));
+        assertEquals(Sparse.class, defaultTypeDeterminator.determineClass(type, candidates, named("spar"), classLoader));
+        assertEquals(SingleBean.class, defaultTypeDeterminator.determineClass(type, candidates, anno, classLoader));
+        assertEquals(MultiBean.class, defaultTypeDeterminator.determineClass(type, candidates, named(""), classLoader));
+        assertEquals(type, defaultTypeDeterminator.determineClass(type, candidates, named("spareTires"), classLoader));
+        assertEquals(type, defaultTypeDeterminator.determineClass(type, candidates, named("x"), classLoader));
+        assertSame(defaultTypeDeterminator.getIndex(type, candidates), defaultTypeDeterminator.getIndex(type, candidates));
+        assertNotSame(defaultTypeDeterminator.getIndex(type, candidates), defaultTypeDeterminator.getIndex(type, candidates.clone()));
+    }
+    
+    private Named named(final String value) {
+        return new Named() {
+            
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Named.class;
+            }
+            
+            @Override
+            public String value() {
+                return value;
+            }
+            
+        };
+    }
+    
 }
@@ -0,0 +1,82 @@
+package com.github.jsr330.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DependencyGraphTest {
+    
+    DependencyGraph graph;
+    
+    @Before
+    public void init() {
+        // String -> Integer -> Long, Double <-> Float -> Long, Short -> Double, Byte -> Byte
+        graph = new DependencyGraph(new Class<?>[] { String.class, Integer.class, Long.class, Double.class, Float.class, Short.class, Byte.class },
+                new int[][] { { 1 }, { 2 }, {}, { 4 }, { 3, 2 }, { 3 }, { 6 } });
+    }
+    
+    @Test
+    public void topologicalOrder() {
+        List<Class<?>> order = graph.getTopologicalOrder();
+        
+        assertEquals(7, order.size());
+        assertTrue(order.indexOf(Long.class) < order.indexOf(Integer.class));
+        assertTrue(order.indexOf(Integer.class) < order.indexOf(String.class));
+        assertTrue(order.indexOf(Long.class) < order.indexOf(Float.class));
+        assertTrue(order.indexOf(Double.class) < order.indexOf(Short.class));
+    }
+    
+    @Test
+    public void components() {
+        assertEquals(6, graph.getComponents().size());
+        assertEquals(2, graph.getComponent(Double.class).size());
+        assertTrue(graph.getComponent(Double.class).contains(Float.class));
+        assertTrue(graph.isCyclic(Double.class));
+        assertTrue(graph.isCyclic(Float.class));
+        assertTrue(graph.isCyclic(Byte.class));
+        assertFalse(graph.isCyclic(Short.class));
+        assertFalse(graph.isCyclic(String.class));
+        assertFalse(graph.isCyclic(Character.class));
+    }
+    
+    @Test
+    public void depths() {
+        assertEquals(0, graph.getDepth(Long.class));
+        assertEquals(1, graph.getDepth(Integer.class));
+        assertEquals(2, graph.getDepth(String.class));
+        assertEquals(-1, graph.getDepth(Double.class));
+        assertEquals(-1, graph.getDepth(Short.class));
+        assertEquals(-1, graph.getDepth(Byte.class));
+        assertEquals(-1, graph.getDepth(Character.class));
+        assertEquals(Arrays.<List<Class<?>>> asList(Arrays.<Class<?>> asList(Long.class), Arrays.<Class<?>> asList(Integer.class),
+                Arrays.<Class<?>> asList(String.class)), graph.getLevels());
+    }
+    
+    @Test
+    public void dependencies() {
+        assertEquals(Arrays.<Class<?>> asList(Double.class, Long.class), graph.getDependencies(Float.class));
+        assertTrue(graph.getDependencies(Character.class).isEmpty());
+    }
+    
+    @Test
+    public void deepChain() {
+        int size = 100000;
+        Class<?>[] types = new Class<?>[size];
+        int[][] edges = new int[size][];
+        
+        // the components are found without recursion, so a deep chain doesn't overflow the stack
+        for (int i = 0; i < size; i++) {
+            types[i] = Object.class;
+            edges[i] = i + 1 < size ? new int[] { i + 1 } : new int[] {};
+        }
+        
+        assertEquals(size, new DependencyGraph(types, edges).getTopologicalOrder().size());
+    }
+    
+}
@@ -0,0 +1,243 @@
+package com.github.jsr330.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IterativeClassInjectorTest {
+    
+    @Singleton
+    public static class Engine {
+    }
+    
+    public static class Wheel {
+    }
+    
+    public static class Car {
+        
+        private final Engine engine;
+        @Inject
+        private Wheel wheel;
+        @Inject
+        private Provider<Wheel> wheelProvider;
+        private Wheel spare;
+        
+        @Inject
+        Car(Engine engine) {
+            this.engine = engine;
+        }
+        
+        @Inject
+        private void setSpare(Wheel spare) {
+            this.spare = spare;
+        }
+        
+    }
+    
+    public static class Broken {
+        
+        @Inject
+        Broken() {
+            throw new IllegalStateException();
+        }
+        
+    }
+    
+    @Singleton
+    public static class BrokenSingleton {
+        
+        @Inject
+        BrokenSingleton(Broken broken) {
+            throw new IllegalStateException();
+        }
+        
+    }
+    
+    public static class Garage {
+        
+        @Inject
+        Broken broken;
+        @Inject
+        Wheel wheel;
+        
+    }
+    
+    public static class Leaf {
+        
+        static int depth;
+        
+        public Leaf() {
+            depth = new Throwable().getStackTrace().length;
+        }
+        
+    }
+    
+    public static class Level1 {
+        
+        @Inject
+        Level1(Leaf leaf) {
+        }
+        
+    }
+    
+    public static class Level2 {
+        
+        @Inject
+        Level1 level1;
+        
+    }
+    
+    public static class Level3 {
+        
+        @Inject
+        Level3(Level2 level2) {
+        }
+        
+    }
+    
+    @Singleton
+    public static class CycleA {
+        
+        @Inject
+        CycleB cycleB;
+        
+    }
+    
+    @Singleton
+    public static class CycleB {
+        
+        @Inject
+        CycleA cycleA;
+        
+    }
+    
+    public static class PrototypeA {
+        
+        @Inject
+        PrototypeB prototypeB;
+        
+    }
+    
+    public static class PrototypeB {
+        
+        @Inject
+        PrototypeB(PrototypeA prototypeA) {
+        }
+        
+    }
+    
+    IterativeClassInjector iterativeClassInjector;
+    Map<String, Class<?>[]> inheritanceTree;
+    ClassLoader classLoader;
+    
+    @Before
+    public void init() {
+        inheritanceTree = new HashMap<String, Class<?>[]>();
+        classLoader = Thread.currentThread().getContextClassLoader();
+        iterativeClassInjector = new IterativeClassInjector();
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance() {
+        Car car = iterativeClassInjector.instance(Car.class, (Map) inheritanceTree, classLoader, null, null);
+        Car other = iterativeClassInjector.instance(Car.class, (Map) inheritanceTree, classLoader, null, null);
+        
+        assertNotNull(car.engine);
+        assertNotNull(car.wheel);
+        assertNotNull(car.spare);
+        assertNotNull(car.wheelProvider.get());
+        assertNotSame(car.wheel, car.spare);
+        assertSame(car.engine, other.engine);
+        assertNotSame(car, other);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_FailingConstructor() {
+        assertNull(iterativeClassInjector.instance(Broken.class, (Map) inheritanceTree, classLoader, null, null));
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_FailingDependency() {
+        Garage garage = iterativeClassInjector.instance(Garage.class, (Map) inheritanceTree, classLoader, null, null);
+        
+        assertNull(garage.broken);
+        assertNotNull(garage.wheel);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_StackDepthIndependentOfGraphDepth() {
+        int depth;
+        
+        iterativeClassInjector.instance(Leaf.class, (Map) inheritanceTree, classLoader, null, null);
+        depth = Leaf.depth;
+        assertNotNull(iterativeClassInjector.instance(Level3.class, (Map) inheritanceTree, classLoader, null, null));
+        
+        assertEquals(depth, Leaf.depth);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test(expected = IllegalStateException.class)
+    public void instance_RejectsCycle() {
+        Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+        
+        classes.put(CycleA.class.getName(), CycleA.class);
+        classes.put(CycleB.class.getName(), CycleB.class);
+        iterativeClassInjector.instanceSingletons(classes, inheritanceTree, classLoader);
+        
+        iterativeClassInjector.instance(CycleA.class, (Map) inheritanceTree, classLoader, null, null);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test(timeout = 10000)
+    public void instance_ReleasesSingletonLock() throws Exception {
+        Thread thread = new Thread() {
+            
+            @Override
+            public void run() {
+                iterativeClassInjector.instance(BrokenSingleton.class, (Map) inheritanceTree, classLoader, null, null);
+            }
+            
+        };
+        
+        assertNull(iterativeClassInjector.instance(BrokenSingleton.class, (Map) inheritanceTree, classLoader, null, null));
+        thread.start();
+        thread.join();
+        assertNull(iterativeClassInjector.getSingletonHolder(BrokenSingleton.class).get());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test(timeout = 10000)
+    public void instance_RejectsCycleOnStack() {
+        try {
+            iterativeClassInjector.instance(PrototypeA.class, (Map) inheritanceTree, classLoader, null, null);
+            fail();
+        } catch (IllegalStateException exception) {
+            assertEquals("dependency cycle [" + PrototypeA.class + ", " + PrototypeB.class + ", " + PrototypeA.class + "]", exception.getMessage());
+        }
+        try {
+            // no dependency graph - the singletons are locked while the cycle is found
+            iterativeClassInjector.instance(CycleA.class, (Map) inheritanceTree, classLoader, null, null);
+            fail();
+        } catch (IllegalStateException exception) {
+            assertEquals("dependency cycle [" + CycleA.class + ", " + CycleB.class + ", " + CycleA.class + "]", exception.getMessage());
+        }
+    }
+    
+}
@@ -0,0 +1,104 @@
+package com.github.jsr330.instance;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MethodHandleClassInjectorTest {
+    
+    @Singleton
+    public static class Engine {
+    }
+    
+    public static class Wheel {
+    }
+    
+    public static class Car {
+        
+        private final Engine engine;
+        @Inject
+        private Wheel wheel;
+        @Inject
+        private Provider<Wheel> wheelProvider;
+        private Wheel spare;
+        
+        @Inject
+        Car(Engine engine) {
+            this.engine = engine;
+        }
+        
+        @Inject
+        private void setSpare(Wheel spare) {
+            this.spare = spare;
+        }
+        
+    }
+    
+    public static class Broken {
+        
+        @Inject
+        Broken() {
+            throw new IllegalStateException();
+        }
+        
+    }
+    
+    MethodHandleClassInjector methodHandleClassInjector;
+    Map<String, Class<?>[]> inheritanceTree;
+    ClassLoader classLoader;
+    
+    @Before
+    public void init() {
+        inheritanceTree = new HashMap<String, Class<?>[]>();
+        classLoader = Thread.currentThread().getContextClassLoader();
+        methodHandleClassInjector = new MethodHandleClassInjector();
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance() {
+        Car car = methodHandleClassInjector.instance(Car.class, (Map) inheritanceTree, classLoader, null, null);
+        Car other = methodHandleClassInjector.instance(Car.class, (Map) inheritanceTree, classLoader, null, null);
+        
+        assertNotNull(car.engine);
+        assertNotNull(car.wheel);
+        assertNotNull(car.spare);
+        assertNotNull(car.wheelProvider.get());
+        assertNotSame(car.wheel, car.spare);
+        assertSame(car.engine, other.engine);
+        assertNotSame(car, other);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void instance_FailingConstructor() {
+        assertNull(methodHandleClassInjector.instance(Broken.class, (Map) inheritanceTree, classLoader, null, null));
+    }
+    
+    @Test
+    public void propagate() {
+        Exception exception = new Exception();
+        
+        assertSame(exception, MethodHandleClassInjector.propagate(exception));
+        assertTrue(MethodHandleClassInjector.propagate(new Throwable()) instanceof RuntimeException);
+        try {
+            MethodHandleClassInjector.propagate(new StackOverflowError());
+            fail();
+        } catch (StackOverflowError error) {
+        }
+    }
+    
+}
@@ -0,0 +1,58 @@
+package com.github.jsr330.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import javax.inject.Named;
+import javax.inject.Qualifier;
+
+import org.junit.Test;
+
+public class QualifierLiteralTest {
+    
+    @Qualifier
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Sized {
+        
+        int size();
+        
+        String[] tags() default { "a", "b" };
+        
+    }
+    
+    @Named("seat")
+    @Sized(size = 3)
+    String annotated;
+    
+    @Test
+    public void create_EqualsReflectiveQualifier() throws Exception {
+        Named named = getClass().getDeclaredField("annotated").getAnnotation(Named.class);
+        Named literal = QualifierLiteral.create(Named.class, "value", "seat");
+        
+        assertEquals(named, literal);
+        assertEquals(literal, named);
+        assertEquals(named.hashCode(), literal.hashCode());
+        assertSame(Named.class, literal.annotationType());
+        assertEquals("seat", literal.value());
+        assertFalse(literal.equals(QualifierLiteral.create(Named.class, "value", "spare")));
+    }
+    
+    @Test
+    public void create_WithArrays() throws Exception {
+        Sized sized = getClass().getDeclaredField("annotated").getAnnotation(Sized.class);
+        Sized literal = QualifierLiteral.create(Sized.class, "size", 3, "tags", new String[] { "a", "b" });
+        
+        assertEquals(sized, literal);
+        assertEquals(literal, sized);
+        assertEquals(literal, QualifierLiteral.create(Sized.class, "size", 3, "tags", new String[] { "a", "b" }));
+        assertEquals(sized.hashCode(), literal.hashCode());
+        assertNotSame(literal.tags(), literal.tags());
+        assertFalse(literal.equals(QualifierLiteral.create(Sized.class, "size", 3, "tags", new String[] { "a" })));
+    }
+    
+}
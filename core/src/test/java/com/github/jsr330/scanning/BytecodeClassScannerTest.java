@@ -0,0 +1,202 @@
+package com.github.jsr330.scanning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsr330.Injector;
+import com.github.jsr330.analysis.InheritanceAnalyser;
+import com.github.jsr330.instance.DefaultClassInjector;
+import com.github.jsr330.spi.EagerClassInjector;
+import com.github.jsr330.spi.IncrementalClassInjector;
+import com.github.jsr330.spi.RegistryClassInjector;
+
+public class BytecodeClassScannerTest {
+    
+    /**
+     * Sees the main classes of the core and their dependencies only and tells which classes of the core were loaded.
+     */
+    static class TrackingClassLoader extends URLClassLoader {
+        
+        TrackingClassLoader() {
+            super(new URL[] { Injector.class.getProtectionDomain().getCodeSource().getLocation() }, new URLClassLoader(new URL[] {
+                    Inject.class.getProtectionDomain().getCodeSource().getLocation(),
+                    LoggerFactory.class.getProtectionDomain().getCodeSource().getLocation() }, null));
+        }
+        
+        boolean isLoaded(String name) {
+            return findLoadedClass(name) != null;
+        }
+        
+    }
+    
+    BytecodeClassScanner scanner;
+    TrackingClassLoader loader;
+    
+    @Before
+    public void init() {
+        scanner = new BytecodeClassScanner();
+        loader = new TrackingClassLoader();
+    }
+    
+    @Test
+    public void scan_DoesNotLoadClasses() {
+        Map<String, Class<?>> classes = scanner.scan(loader);
+        
+        assertTrue(classes instanceof ScannedClasses);
+        assertTrue(classes.containsKey(Injector.class.getName()));
+        assertTrue(classes.containsKey(DefaultClassInjector.class.getName()));
+        assertFalse(loader.isLoaded(Injector.class.getName()));
+        assertFalse(loader.isLoaded(DefaultClassInjector.class.getName()));
+    }
+    
+    @Test
+    public void scan_ReadsMetadata() {
+        ScannedClasses classes = (ScannedClasses) scanner.scan(loader);
+        ClassMetadata classMetadata = classes.getMetadata(DefaultClassInjector.class.getName());
+        
+        assertEquals(Object.class.getName(), classMetadata.getSuperName());
+        assertArrayEquals(new String[] { IncrementalClassInjector.class.getName(), EagerClassInjector.class.getName(),
+                RegistryClassInjector.class.getName() }, classMetadata.getInterfaceNames());
+        assertTrue(classMetadata.isConcrete());
+        assertTrue(classes.getMetadata(IncrementalClassInjector.class.getName()).isInterface());
+        assertNull(classes.getMetadata(Object.class.getName()));
+        assertEquals(Object.class.getName(), classes.readMetadata(Object.class.getName()).getName());
+        assertFalse(loader.isLoaded(DefaultClassInjector.class.getName()));
+    }
+    
+    @Test
+    public void scan_LoadsOnAccess() {
+        Map<String, Class<?>> classes = scanner.scan(loader);
+        Class<?> type = classes.get(ClassMetadata.class.getName());
+        
+        assertEquals(ClassMetadata.class.getName(), type.getName());
+        assertSame(loader, type.getClassLoader());
+        assertSame(type, classes.get(ClassMetadata.class.getName()));
+        assertTrue(loader.isLoaded(ClassMetadata.class.getName()));
+        assertNull(classes.get(Object.class.getName()));
+    }
+    
+    @Test
+    public void injector_LoadsNoClassesWithoutStaticInjection() {
+        Injector injector = new Injector(loader, scanner, null, null);
+        
+        assertTrue(injector.getScanner().scan(loader).containsKey(DefaultClassInjector.class.getName()));
+        assertFalse(loader.isLoaded(DefaultClassInjector.class.getName()));
+        assertFalse(loader.isLoaded(Injector.class.getName()));
+    }
+    
+    @Test
+    public void scan_InParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ScannedClasses classes;
+        
+        try {
+            scanner.setPool(pool);
+            classes = (ScannedClasses) scanner.scan(loader);
+        } finally {
+            pool.shutdown();
+        }
+        
+        assertEquals(new ArrayList<String>(((ScannedClasses) new BytecodeClassScanner().scan(loader)).getMetadata().keySet()),
+                new ArrayList<String>(classes.getMetadata().keySet()));
+        assertFalse(loader.isLoaded(DefaultClassInjector.class.getName()));
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void scan_WatchingDirectories() throws Exception {
+        Path root = Files.createTempDirectory("classes");
+        Path pkg = Files.createDirectories(root.resolve("com/github/jsr330/scanning"));
+        BytecodeClassScanner watching = spy(new BytecodeClassScanner(new RegExSourceDirFilter(".*" + Pattern.quote(root.getFileName()
+                .toString()) + ".*"), null));
+        DefaultClassInjector instancer = spy(new DefaultClassInjector());
+        ArgumentCaptor<Map> added = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Map> removed = ArgumentCaptor.forClass(Map.class);
+        URLClassLoader directoryLoader = new URLClassLoader(new URL[] { root.toUri().toURL() }, new URLClassLoader(new URL[] { Inject.class
+                .getProtectionDomain().getCodeSource().getLocation() }, null));
+        Map<String, Class<?>> classes;
+        Injector injector;
+        
+        watching.setWatchDirectories(true);
+        try {
+            Files.createDirectory(root.resolve("META-INF"));
+            copy(ClassMetadata.class, pkg);
+            copy(ClassFileReader.class, pkg);
+            injector = new Injector(directoryLoader, watching, new InheritanceAnalyser(), instancer);
+            classes = watching.scan(directoryLoader);
+            assertEquals(2, classes.size());
+            assertTrue(classes.containsKey(ClassMetadata.class.getName()));
+            // only a class which was loaded can be told removed - the class loader keeps it after the file is deleted
+            directoryLoader.loadClass(ClassMetadata.class.getName());
+            
+            Files.delete(pkg.resolve("ClassMetadata.class"));
+            copy(ScanIndex.class, pkg);
+            // the events arrive asynchronously
+            for (int i = 0; i < 100 && !classes.containsKey(ScanIndex.class.getName()); i++) {
+                Thread.sleep(50);
+                classes = watching.scan(directoryLoader);
+            }
+            
+            assertEquals(2, classes.size());
+            assertTrue(classes.containsKey(ClassFileReader.class.getName()));
+            assertTrue(classes.containsKey(ScanIndex.class.getName()));
+            // the unchanged class file isn't read again
+            verify(watching, times(1)).readMetadata(eq(pkg.resolve("ClassFileReader.class").toFile()), any(String.class));
+            
+            injector.update();
+            verify(instancer).update(any(Map.class), any(Map.class), added.capture(), removed.capture(), same(directoryLoader));
+            assertEquals(Collections.singleton(ScanIndex.class.getName()), added.getValue().keySet());
+            assertEquals(Collections.singleton(ClassMetadata.class.getName()), removed.getValue().keySet());
+        } finally {
+            watching.setWatchDirectories(false);
+            directoryLoader.close();
+            Files.deleteIfExists(pkg.resolve("ClassMetadata.class"));
+            Files.deleteIfExists(pkg.resolve("ClassFileReader.class"));
+            Files.deleteIfExists(pkg.resolve("ScanIndex.class"));
+            Files.deleteIfExists(root.resolve("META-INF"));
+            for (Path path = pkg; !path.equals(root.getParent()); path = path.getParent()) {
+                Files.delete(path);
+            }
+        }
+    }
+    
+    void copy(Class<?> type, Path directory) throws IOException {
+        InputStream stream = type.getResourceAsStream(type.getSimpleName() + ".class");
+        
+        try {
+            Files.copy(stream, directory.resolve(type.getSimpleName() + ".class"));
+        } finally {
+            stream.close();
+        }
+    }
+    
+}
@@ -0,0 +1,98 @@
+package com.github.jsr330.scanning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.junit.Test;
+
+public class ClassFileReaderTest {
+    
+    public interface Service extends Serializable {
+    }
+    
+    @Singleton
+    @Named("annotated")
+    public static abstract class AbstractService implements Service, Runnable {
+        
+        static final long CONSTANT = 42L;
+        static final double FACTOR = 0.5d;
+        
+        @Inject
+        Service service;
+        
+    }
+    
+    public static class StaticField {
+        
+        @Inject
+        static Service service;
+        
+    }
+    
+    public static class StaticMethod {
+        
+        @Inject
+        static void inject(@Named("parameter") Service service) {
+        }
+        
+    }
+    
+    ClassMetadata read(Class<?> type) throws IOException {
+        InputStream stream = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        
+        try {
+            return ClassFileReader.read(stream);
+        } finally {
+            stream.close();
+        }
+    }
+    
+    @Test
+    public void read_Interface() throws IOException {
+        ClassMetadata classMetadata = read(Service.class);
+        
+        assertEquals(Service.class.getName(), classMetadata.getName());
+        assertTrue(classMetadata.isInterface());
+        assertFalse(classMetadata.isConcrete());
+        assertNull(classMetadata.getSuperName());
+        assertArrayEquals(new String[] { Serializable.class.getName() }, classMetadata.getInterfaceNames());
+    }
+    
+    @Test
+    public void read_AbstractClass() throws IOException {
+        ClassMetadata classMetadata = read(AbstractService.class);
+        
+        assertTrue(classMetadata.isAbstract());
+        assertFalse(classMetadata.isConcrete());
+        assertEquals(Object.class.getName(), classMetadata.getSuperName());
+        assertArrayEquals(new String[] { Service.class.getName(), Runnable.class.getName() }, classMetadata.getInterfaceNames());
+        assertTrue(classMetadata.isAnnotationPresent(Singleton.class));
+        assertTrue(classMetadata.isAnnotationPresent(Named.class));
+        assertFalse(classMetadata.hasStaticInjection());
+    }
+    
+    @Test
+    public void read_StaticInjection() throws IOException {
+        assertTrue(read(StaticField.class).hasStaticInjection());
+        assertTrue(read(StaticMethod.class).hasStaticInjection());
+        assertTrue(read(StaticMethod.class).isConcrete());
+    }
+    
+    @Test(expected = IOException.class)
+    public void read_NoClassFile() throws IOException {
+        ClassFileReader.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+    }
+    
+}
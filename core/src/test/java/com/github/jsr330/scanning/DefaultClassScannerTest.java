@@ -1,17 +1,37 @@
 package com.github.jsr330.scanning;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -170,4 +190,164 @@ public class DefaultClassScannerTest {
         }
     }
     
+    @Test
+    public void scanInParallel() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<String, Class<?>> classes;
+        
+        try {
+            defaultClassScanner.setPool(pool);
+            classes = defaultClassScanner.scan(loader);
+        } finally {
+            pool.shutdown();
+        }
+        
+        assertTrue(classes.containsKey(Test.class.getName()));
+        assertTrue(classes.containsKey(DefaultClassScanner.class.getName()));
+        assertEquals(new ArrayList<String>(new DefaultClassScanner().scan(loader).keySet()), new ArrayList<String>(classes.keySet()));
+    }
+    
+    @Test
+    public void traverseJar_ReadsCentralDirectoryOnly() throws Exception {
+        File jar = File.createTempFile("scanner", ".jar");
+        ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(jar));
+        Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        
+        try {
+            // the content isn't a class file - listing the class mustn't read it
+            stream.putNextEntry(new ZipEntry(DefaultClassScanner.class.getName().replace('.', '/') + ".class"));
+            stream.write(new byte[] { 1, 2, 3 });
+            stream.putNextEntry(new ZipEntry("readme.txt"));
+            stream.close();
+            
+            defaultClassScanner.traverseJar(jar.getAbsolutePath(), jar.toURI().toURL(), Thread.currentThread().getContextClassLoader(), classes);
+        } finally {
+            jar.delete();
+        }
+        
+        assertEquals(1, classes.size());
+        assertSame(DefaultClassScanner.class, classes.get(DefaultClassScanner.class.getName()));
+        assertFalse(classes.containsKey("readme"));
+    }
+    
+    @Test
+    public void scan_WithIndexDirectory() throws Exception {
+        File directory = File.createTempFile("index", "");
+        File jar = File.createTempFile("scanner", ".jar");
+        ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(jar));
+        ClassLoader loader = new URLClassLoader(new URL[] { jar.toURI().toURL() }, Thread.currentThread().getContextClassLoader());
+        DefaultClassScanner indexed;
+        Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        
+        directory.delete();
+        try {
+            stream.putNextEntry(new ZipEntry(DefaultClassScanner.class.getName().replace('.', '/') + ".class"));
+            stream.close();
+            
+            defaultClassScanner.setIndexDirectory(directory);
+            defaultClassScanner.traverseRoot("jar:" + jar.toURI() + "!/", loader, classes);
+            assertEquals(1, directory.listFiles().length);
+            
+            indexed = spy(new DefaultClassScanner());
+            indexed.setIndexDirectory(directory);
+            classes.clear();
+            indexed.traverseRoot("jar:" + jar.toURI() + "!/", loader, classes);
+            verify(indexed, never()).indexJar(any(File.class));
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+            jar.delete();
+        }
+        
+        assertEquals(1, classes.size());
+        assertSame(DefaultClassScanner.class, classes.get(DefaultClassScanner.class.getName()));
+    }
+    
+    @Test
+    public void traverseRoot_ReadsClassIndex() throws Exception {
+        Path directory = Files.createTempDirectory("root");
+        DefaultClassScanner scanner = spy(new DefaultClassScanner());
+        Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        
+        try {
+            writeClassIndex(directory, DefaultClassScanner.class);
+            copyClassFile(directory, DefaultClassScanner.class);
+            // anonymous classes aren't part of the index
+            copyClassFile(directory, DefaultClassScanner.class.getName() + "$RootsTask$1");
+            
+            scanner.traverseRoot(directory.toUri().toString(), Thread.currentThread().getContextClassLoader(), classes);
+        } finally {
+            delete(directory);
+        }
+        
+        verify(scanner, never()).traverseFile(any(String.class), any(File.class), any(ClassLoader.class), any(Map.class));
+        assertEquals(1, classes.size());
+        assertSame(DefaultClassScanner.class, classes.get(DefaultClassScanner.class.getName()));
+    }
+    
+    @Test
+    public void traverseRoot_TraversesStaleClassIndex() throws Exception {
+        Path directory = Files.createTempDirectory("root");
+        DefaultClassScanner scanner = spy(new DefaultClassScanner());
+        Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        
+        try {
+            writeClassIndex(directory, DefaultClassScanner.class);
+            copyClassFile(directory, DefaultClassScanner.class);
+            // compiled without the processor
+            copyClassFile(directory, ClassIndex.class.getName());
+            
+            scanner.traverseRoot(directory.toUri().toString(), Thread.currentThread().getContextClassLoader(), classes);
+        } finally {
+            delete(directory);
+        }
+        
+        assertEquals(2, classes.size());
+        assertSame(ClassIndex.class, classes.get(ClassIndex.class.getName()));
+    }
+    
+    void writeClassIndex(Path directory, Class<?> type) throws IOException {
+        Path index = directory.resolve(ClassIndex.RESOURCE);
+        
+        Files.createDirectories(index.getParent());
+        Files.write(index, (ClassIndex.format(new ClassMetadata(type)) + "\n").getBytes("UTF-8"));
+    }
+    
+    void copyClassFile(Path directory, Class<?> type) throws IOException {
+        copyClassFile(directory, type.getName());
+    }
+    
+    void copyClassFile(Path directory, String name) throws IOException {
+        Path file = directory.resolve(name.replace('.', '/') + ".class");
+        InputStream stream = getClass().getResourceAsStream("/" + name.replace('.', '/') + ".class");
+        
+        Files.createDirectories(file.getParent());
+        try {
+            Files.copy(stream, file);
+        } finally {
+            stream.close();
+        }
+    }
+    
+    void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exception) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+            
+        });
+    }
+    
 }
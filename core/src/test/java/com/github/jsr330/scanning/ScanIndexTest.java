@@ -0,0 +1,103 @@
+package com.github.jsr330.scanning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScanIndexTest {
+    
+    File directory;
+    File jar;
+    
+    @Before
+    public void init() throws Exception {
+        directory = File.createTempFile("index", "");
+        directory.delete();
+        jar = File.createTempFile("index", ".jar");
+        write(jar, 3);
+    }
+    
+    @After
+    public void cleanup() {
+        File[] files = directory.listFiles();
+        
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+        jar.delete();
+    }
+    
+    @Test
+    public void writeAndRead() {
+        ClassMetadata first = new ClassMetadata("a.B", ClassMetadata.ACC_ABSTRACT, "java.lang.Object", new String[] { "a.C", "a.D" },
+                new String[] { "javax.inject.Singleton" }, true);
+        ClassMetadata second = new ClassMetadata("a.C", ClassMetadata.ACC_INTERFACE, null, new String[] {}, new String[] {}, false);
+        List<ClassMetadata> read;
+        
+        ScanIndex.write(directory, jar, "classes", Arrays.asList(first, second));
+        read = ScanIndex.read(directory, jar, "classes");
+        
+        assertEquals(2, read.size());
+        assertEquals("a.B", read.get(0).getName());
+        assertEquals(ClassMetadata.ACC_ABSTRACT, read.get(0).getAccess());
+        assertEquals("java.lang.Object", read.get(0).getSuperName());
+        assertArrayEquals(new String[] { "a.C", "a.D" }, read.get(0).getInterfaceNames());
+        assertArrayEquals(new String[] { "javax.inject.Singleton" }, read.get(0).getAnnotations());
+        assertTrue(read.get(0).hasStaticInjection());
+        assertEquals("a.C", read.get(1).getName());
+        assertNull(read.get(1).getSuperName());
+        assertEquals(0, read.get(1).getInterfaceNames().length);
+    }
+    
+    @Test
+    public void read_Missing() {
+        assertNull(ScanIndex.read(directory, jar, "classes"));
+    }
+    
+    @Test
+    public void read_OtherKind() {
+        ScanIndex.write(directory, jar, "names", Arrays.<ClassMetadata> asList());
+        
+        assertNull(ScanIndex.read(directory, jar, "classes"));
+    }
+    
+    @Test
+    public void read_ChangedJar() throws Exception {
+        ScanIndex.write(directory, jar, "names", Arrays.<ClassMetadata> asList());
+        write(jar, 5);
+        
+        assertNull(ScanIndex.read(directory, jar, "names"));
+    }
+    
+    @Test
+    public void read_TouchedJar() throws Exception {
+        ScanIndex.write(directory, jar, "names", Arrays.<ClassMetadata> asList());
+        jar.setLastModified(jar.lastModified() - 10000);
+        
+        assertNull(ScanIndex.read(directory, jar, "names"));
+    }
+    
+    private void write(File file, int size) throws Exception {
+        FileOutputStream stream = new FileOutputStream(file);
+        
+        try {
+            stream.write(new byte[size]);
+        } finally {
+            stream.close();
+        }
+    }
+    
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.processor;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import com.github.jsr330.scanning.ClassIndex;
+import com.github.jsr330.scanning.ClassMetadata;
+
+/**
+ * This processor writes the {@link ClassIndex} of all compiled classes, so the class scanners read the index instead of traversing the jar or
+ * the class directory at runtime.
+ */
+@SupportedAnnotationTypes("*")
+public class ClassIndexProcessor extends AbstractProcessor {
+    
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final String INJECT = "javax.inject.Inject";
+    private static final String[] EMPTY_STRING_ARRAY = new String[] {};
+    
+    /**
+     * The index lines by binary classname.
+     */
+    protected Map<String, String> entries = new TreeMap<String, String>();
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                register((TypeElement) element);
+            }
+        }
+        
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Registers the type and its nested types.
+     */
+    protected void register(TypeElement type) {
+        ClassMetadata classMetadata = getMetadata(type);
+        
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            register(nested);
+        }
+        
+        entries.put(classMetadata.getName(), ClassIndex.format(classMetadata));
+    }
+    
+    /**
+     * Writes the index file - the lines of the classes not compiled this time are kept, see {@link ClassListResource}.
+     */
+    protected void writeIndex() {
+        try {
+            ClassListResource.write(processingEnv.getFiler(), ClassIndex.RESOURCE, getClass().getName(), entries);
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "error while writing class index: " + exception);
+        }
+    }
+    
+    /**
+     * Gets the information of the type as the class file header will contain it.
+     */
+    protected ClassMetadata getMetadata(TypeElement type) {
+        List<String> interfaceNames = new ArrayList<String>();
+        List<String> annotations = new ArrayList<String>();
+        boolean isInterface = type.getKind().isInterface();
+        String superName = null;
+        
+        if (!isInterface && type.getSuperclass().getKind() == TypeKind.DECLARED) {
+            superName = getBinaryName(type.getSuperclass());
+        }
+        for (TypeMirror iface : type.getInterfaces()) {
+            interfaceNames.add(getBinaryName(iface));
+        }
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (isRuntimeVisible(annotation)) {
+                annotations.add(getBinaryName(annotation.getAnnotationType()));
+            }
+        }
+        
+        return new ClassMetadata(getBinaryName(type), getAccess(type), superName, interfaceNames.toArray(EMPTY_STRING_ARRAY),
+                annotations.toArray(EMPTY_STRING_ARRAY), hasStaticInjection(type));
+    }
+    
+    /**
+     * Gets the access flags of the type - only the ones the class scanners use.
+     */
+    protected int getAccess(TypeElement type) {
+        int access = 0;
+        
+        if (type.getModifiers().contains(Modifier.PUBLIC)) {
+            access |= ACC_PUBLIC;
+        }
+        if (type.getModifiers().contains(Modifier.FINAL)) {
+            access |= ACC_FINAL;
+        }
+        if (type.getKind().isInterface()) {
+            access |= ClassMetadata.ACC_INTERFACE | ClassMetadata.ACC_ABSTRACT;
+        } else if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            access |= ClassMetadata.ACC_ABSTRACT;
+        }
+        if (type.getKind() == ElementKind.ANNOTATION_TYPE) {
+            access |= ClassMetadata.ACC_ANNOTATION;
+        }
+        
+        return access;
+    }
+    
+    /**
+     * Indicates that a static field or method of the type is annotated with {@link javax.inject.Inject}.
+     */
+    protected boolean hasStaticInjection(TypeElement type) {
+        for (Element member : type.getEnclosedElements()) {
+            if ((member.getKind() == ElementKind.FIELD || member.getKind() == ElementKind.METHOD)
+                    && member.getModifiers().contains(Modifier.STATIC) && isInjected(member)) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    protected boolean isInjected(Element member) {
+        for (AnnotationMirror annotation : member.getAnnotationMirrors()) {
+            if (INJECT.equals(getBinaryName(annotation.getAnnotationType()))) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Indicates that the annotation is retained at runtime, so it's part of the class file header.
+     */
+    protected boolean isRuntimeVisible(AnnotationMirror annotation) {
+        Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+        
+        return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+    }
+    
+    protected String getBinaryName(TypeMirror type) {
+        return getBinaryName((TypeElement) ((DeclaredType) type).asElement());
+    }
+    
+    protected String getBinaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+    
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.Filer;
+import javax.tools.StandardLocation;
+
+/**
+ * A resource of the class output listing one class per line, the binary classname in the first column. An incremental compile processes the
+ * changed sources only, so the lines of the classes which weren't compiled again are taken over from the previous resource - as long as their
+ * class files still exist.
+ */
+public class ClassListResource {
+    
+    private static final Pattern COLUMN_SEPARATOR_REGEX = Pattern.compile("\\s+");
+    
+    /**
+     * Writes the resource with the lines of the classes compiled and the lines of the previous resource for all other existing classes.
+     */
+    public static void write(Filer filer, String resource, String generator, Map<String, String> entries) throws IOException {
+        Map<String, String> merged = readPrevious(filer, resource);
+        Writer writer = null;
+        
+        merged.putAll(entries);
+        try {
+            writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resource).openWriter();
+            writer.write("# generated by " + generator + "\n");
+            for (String entry : merged.values()) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+    
+    /**
+     * Reads the lines of the previous resource whose classes still exist in the class output - gives back an empty map if there is no previous
+     * resource.
+     */
+    public static Map<String, String> readPrevious(Filer filer, String resource) {
+        Map<String, String> entries = new TreeMap<String, String>();
+        BufferedReader reader = null;
+        String line;
+        String name;
+        
+        try {
+            reader = new BufferedReader(filer.getResource(StandardLocation.CLASS_OUTPUT, "", resource).openReader(true));
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && line.charAt(0) != '#') {
+                    name = COLUMN_SEPARATOR_REGEX.split(line, 2)[0];
+                    if (exists(filer, name)) {
+                        entries.put(name, line);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            // there is no previous resource
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException exception) {
+                    // nothing to do
+                }
+            }
+        }
+        
+        return entries;
+    }
+    
+    /**
+     * Indicates that the class file of the class exists in the class output.
+     */
+    protected static boolean exists(Filer filer, String name) {
+        InputStream stream;
+        
+        try {
+            stream = filer.getResource(StandardLocation.CLASS_OUTPUT, "", name.replace('.', '/') + ".class").openInputStream();
+            stream.close();
+            return true;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+    
+}
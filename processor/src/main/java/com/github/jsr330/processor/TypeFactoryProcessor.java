@@ -0,0 +1,588 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import com.github.jsr330.scanning.TypeFactoryRegistry;
+
+/**
+ * This processor generates a {@link com.github.jsr330.spi.TypeFactory} for every concrete class with an injected constructor or injected
+ * members it's able to instance and inject without reflection and writes the {@link TypeFactoryRegistry} of all processed classes.
+ * A class gets no factory (and is handled by reflection at runtime) if it's abstract, if nothing of it is injected or if any of its
+ * constructor, injected members or dependency types isn't accessible from its package, e.g. private injected members.
+ */
+@SupportedAnnotationTypes("*")
+public class TypeFactoryProcessor extends AbstractProcessor {
+    
+    public static final String FACTORY_SUFFIX = "_TypeFactory";
+    
+    private static final String INJECT = "javax.inject.Inject";
+    private static final String QUALIFIER = "javax.inject.Qualifier";
+    private static final String SINGLETON = "javax.inject.Singleton";
+    private static final String OBJECT = "java.lang.Object";
+    private static final String RESOLVE = ".resolve(injector, inheritanceTree, classLoader)";
+    
+    /**
+     * The registry lines by binary classname.
+     */
+    protected Map<String, String> entries = new TreeMap<String, String>();
+    /**
+     * The qualified names of the generated factories.
+     */
+    protected Set<String> generated = new TreeSet<String>();
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                register((TypeElement) element);
+            }
+        }
+        
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeRegistry();
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Registers the type and its nested types and generates the factories.
+     */
+    protected void register(TypeElement type) {
+        String kind;
+        String factory = TypeFactoryRegistry.NONE;
+        String name = getBinaryName(type);
+        
+        if (generated.contains(type.getQualifiedName().toString())) {
+            return;
+        }
+        
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            register(nested);
+        }
+        
+        if (type.getKind() == ElementKind.INTERFACE) {
+            kind = TypeFactoryRegistry.KIND_INTERFACE;
+        } else if (type.getKind() == ElementKind.CLASS) {
+            kind = type.getModifiers().contains(Modifier.ABSTRACT) ? TypeFactoryRegistry.KIND_ABSTRACT : TypeFactoryRegistry.KIND_CLASS;
+            try {
+                factory = generateFactory(type);
+            } catch (IOException exception) {
+                processingEnv.getMessager().printMessage(Kind.WARNING, "error while generating type factory: " + exception, type);
+            }
+            if (factory == null) {
+                factory = TypeFactoryRegistry.NONE;
+            }
+        } else {
+            return;
+        }
+        
+        entries.put(name, name + ' ' + kind + ' ' + factory + ' ' + getSupertypes(type));
+    }
+    
+    /**
+     * Writes the registry file - the lines of the classes not compiled this time are kept, see {@link ClassListResource}.
+     */
+    protected void writeRegistry() {
+        try {
+            ClassListResource.write(processingEnv.getFiler(), TypeFactoryRegistry.RESOURCE, getClass().getName(), entries);
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "error while writing registry: " + exception);
+        }
+    }
+    
+    /**
+     * Gets all supertypes of the type (comma separated binary names).
+     */
+    protected String getSupertypes(TypeElement type) {
+        Set<String> supertypes = new TreeSet<String>();
+        StringBuilder builder = new StringBuilder();
+        
+        collectSupertypes(type.asType(), supertypes);
+        for (String supertype : supertypes) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(supertype);
+        }
+        
+        return builder.length() > 0 ? builder.toString() : TypeFactoryRegistry.NONE;
+    }
+    
+    protected void collectSupertypes(TypeMirror type, Set<String> supertypes) {
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (supertype.getKind() == TypeKind.DECLARED && supertypes.add(getBinaryName((TypeElement) ((DeclaredType) supertype).asElement()))) {
+                collectSupertypes(supertype, supertypes);
+            }
+        }
+    }
+    
+    /**
+     * Generates the factory source of the class and gives back the binary name of the factory or {@code null} if the class is abstract, has
+     * nothing injected or can't be handled without reflection.
+     */
+    protected String generateFactory(TypeElement type) throws IOException {
+        String pkg = getPackageName(type);
+        String name = type.getQualifiedName().toString();
+        String factoryName = getFactoryName(type);
+        String qualifiedFactoryName = pkg.length() > 0 ? pkg + '.' + factoryName : factoryName;
+        List<String> dependencies = new ArrayList<String>();
+        StringBuilder members = new StringBuilder();
+        StringBuilder statics = new StringBuilder();
+        StringBuilder source = new StringBuilder();
+        ExecutableElement constructor = null;
+        List<TypeElement> hierarchy;
+        String arguments = null;
+        String target, statement;
+        Writer writer;
+        
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || !isNameable(type, pkg)
+                || type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            return null;
+        }
+        
+        if ((constructor = getConstructor(type)) == null || constructor.getModifiers().contains(Modifier.PRIVATE)
+                || (arguments = getArguments(constructor.getParameters(), pkg, dependencies)) == null) {
+            return null;
+        }
+        
+        hierarchy = getHierarchy(type);
+        for (TypeElement declaring : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(declaring.getEnclosedElements())) {
+                if (isAnnotated(field, INJECT) && !field.getModifiers().contains(Modifier.FINAL) && isInjectable(field.asType())) {
+                    if (!isAccessible(field, declaring, pkg)) {
+                        return null;
+                    }
+                    
+                    statement = getDependency(field.asType(), field, pkg, dependencies);
+                    if (statement == null) {
+                        return null;
+                    }
+                    
+                    if (field.getModifiers().contains(Modifier.STATIC)) {
+                        target = declaring.getQualifiedName() + "." + field.getSimpleName();
+                        appendMember(statics, target + " = (" + getTypeName(field.asType()) + ") " + statement + RESOLVE);
+                    } else {
+                        target = "((" + declaring.getQualifiedName() + ") inst)." + field.getSimpleName();
+                        appendMember(members, target + " = (" + getTypeName(field.asType()) + ") " + statement + RESOLVE);
+                    }
+                }
+            }
+            
+            for (ExecutableElement method : ElementFilter.methodsIn(declaring.getEnclosedElements())) {
+                if (isAnnotated(method, INJECT) && !method.getModifiers().contains(Modifier.ABSTRACT)) {
+                    if (method.getModifiers().contains(Modifier.STATIC)) {
+                        if (!isAccessible(method, declaring, pkg) || (statement = getArguments(method.getParameters(), pkg, dependencies)) == null) {
+                            return null;
+                        }
+                        appendMember(statics, declaring.getQualifiedName() + "." + method.getSimpleName() + "(" + statement + ")");
+                    } else if (!isOverridden(method, declaring, hierarchy)) {
+                        if (!isAccessible(method, declaring, pkg) || (statement = getArguments(method.getParameters(), pkg, dependencies)) == null) {
+                            return null;
+                        }
+                        appendMember(members, "((" + declaring.getQualifiedName() + ") inst)." + method.getSimpleName() + "(" + statement + ")");
+                    }
+                }
+            }
+        }
+        
+        if (!isAnnotated(constructor, INJECT) && members.length() == 0 && statics.length() == 0) {
+            return null;
+        }
+        
+        if (pkg.length() > 0) {
+            source.append("package ").append(pkg).append(";\n\n");
+        }
+        source.append("/**\n * Generated by ").append(getClass().getName()).append(" - don't edit.\n */\n");
+        source.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+        source.append("public final class ").append(factoryName).append(" implements com.github.jsr330.spi.TypeFactory<").append(name).append("> {\n\n");
+        source.append("    private static final org.slf4j.Logger LOGGER = org.slf4j.LoggerFactory.getLogger(").append(factoryName).append(".class);\n");
+        for (int i = 0; i < dependencies.size(); i++) {
+            source.append("    private static final com.github.jsr330.instance.Dependency DEPENDENCY_").append(i);
+            source.append(" = new com.github.jsr330.instance.Dependency(").append(dependencies.get(i)).append(");\n");
+        }
+        source.append("\n    @Override\n    public java.lang.Class<").append(name).append("> getType() {\n");
+        source.append("        return ").append(name).append(".class;\n    }\n\n");
+        source.append("    @Override\n    public boolean isSingleton() {\n");
+        source.append("        return ").append(isAnnotated(type, SINGLETON)).append(";\n    }\n\n");
+        source.append("    @Override\n    public ").append(name).append(" create(com.github.jsr330.spi.ClassInjector injector, ");
+        source.append("java.util.Map<java.lang.String, java.lang.Class<?>[]> inheritanceTree, java.lang.ClassLoader classLoader) throws java.lang.Exception {\n");
+        source.append("        ").append(name).append(" inst = new ").append(name).append("(").append(arguments).append(");\n");
+        source.append(members);
+        source.append("        return inst;\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n    public void injectStaticMembers(com.github.jsr330.spi.ClassInjector injector, ");
+        source.append("java.util.Map<java.lang.String, java.lang.Class<?>[]> inheritanceTree, java.lang.ClassLoader classLoader) {\n");
+        source.append(statics);
+        source.append("    }\n\n}\n");
+        
+        generated.add(qualifiedFactoryName);
+        writer = processingEnv.getFiler().createSourceFile(qualifiedFactoryName, type).openWriter();
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+        
+        return qualifiedFactoryName;
+    }
+    
+    /**
+     * Appends the injection of a member - errors are logged like the reflective injection does, a dependency cycle is rethrown.
+     */
+    protected void appendMember(StringBuilder builder, String statement) {
+        builder.append("        try {\n");
+        builder.append("            ").append(statement).append(";\n");
+        builder.append("        } catch (com.github.jsr330.instance.DependencyCycleException exception) {\n");
+        builder.append("            throw exception;\n");
+        builder.append("        } catch (java.lang.Exception exception) {\n");
+        builder.append("            LOGGER.debug(\"error while injecting member\", exception);\n");
+        builder.append("        }\n");
+    }
+    
+    /**
+     * Gets the comma separated argument expressions or {@code null} if a parameter can't be resolved without reflection.
+     */
+    protected String getArguments(List<? extends VariableElement> parameters, String pkg, List<String> dependencies) {
+        StringBuilder builder = new StringBuilder();
+        String dependency;
+        TypeMirror erasure;
+        
+        for (VariableElement parameter : parameters) {
+            erasure = processingEnv.getTypeUtils().erasure(parameter.asType());
+            if ((dependency = getDependency(parameter.asType(), parameter, pkg, dependencies)) == null) {
+                return null;
+            }
+            
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append('(').append(getTypeName(erasure)).append(") ").append(dependency).append(RESOLVE);
+        }
+        
+        return builder.toString();
+    }
+    
+    /**
+     * Adds the dependency constant for the type and gives back its name or {@code null} if the dependency can't be expressed.
+     */
+    protected String getDependency(TypeMirror type, Element element, String pkg, List<String> dependencies) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        StringBuilder generics = new StringBuilder();
+        String qualifier;
+        
+        if (!isNameable(erasure, pkg) || (qualifier = getQualifier(element, pkg)) == null) {
+            return null;
+        }
+        
+        if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                if (argument.getKind() == TypeKind.DECLARED && ((DeclaredType) argument).getTypeArguments().isEmpty()) {
+                    if (!isNameable(argument, pkg)) {
+                        return null;
+                    }
+                    generics.append(generics.length() > 0 ? ", " : "").append(getTypeName(argument)).append(".class");
+                }
+            }
+            dependencies.add(getTypeName(erasure) + ".class, new java.lang.Class<?>[] { " + generics + " }, " + qualifier);
+        } else {
+            dependencies.add(getTypeName(erasure) + ".class, null, " + qualifier);
+        }
+        
+        return "DEPENDENCY_" + (dependencies.size() - 1);
+    }
+    
+    /**
+     * Gets the expression of the qualifier of the element ({@code "null"} if there is none) or {@code null} if the qualifier can't be expressed.
+     */
+    protected String getQualifier(Element element, String pkg) {
+        StringBuilder builder = new StringBuilder();
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values;
+        TypeElement annotationType;
+        String literal;
+        
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (isAnnotated(annotationType, QUALIFIER)) {
+                if (!isNameable(annotationType, pkg)) {
+                    return null;
+                }
+                
+                values = processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+                builder.append("com.github.jsr330.instance.QualifierLiteral.create(").append(annotationType.getQualifiedName()).append(".class");
+                for (ExecutableElement member : ElementFilter.methodsIn(annotationType.getEnclosedElements())) {
+                    if ((literal = getLiteral(member.getReturnType(), values.get(member))) == null) {
+                        return null;
+                    }
+                    builder.append(", \"").append(member.getSimpleName()).append("\", ").append(literal);
+                }
+                return builder.append(')').toString();
+            }
+        }
+        
+        return "null";
+    }
+    
+    /**
+     * Gets the java literal of an annotation value or {@code null} if the value can't be expressed.
+     */
+    @SuppressWarnings("unchecked")
+    protected String getLiteral(TypeMirror type, AnnotationValue annotationValue) {
+        StringBuilder builder = new StringBuilder();
+        Object value = annotationValue.getValue();
+        String literal;
+        
+        if (value instanceof String) {
+            return quote((String) value, '"');
+        } else if (value instanceof Character) {
+            return quote(value.toString(), '\'');
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else if (value instanceof Float) {
+            return ((Float) value).isNaN() || ((Float) value).isInfinite() ? null : value + "F";
+        } else if (value instanceof Double) {
+            return ((Double) value).isNaN() || ((Double) value).isInfinite() ? null : value + "D";
+        } else if (value instanceof Short) {
+            return "(short) " + value;
+        } else if (value instanceof Byte) {
+            return "(byte) " + value;
+        } else if (value instanceof Integer || value instanceof Boolean) {
+            return value.toString();
+        } else if (value instanceof TypeMirror) {
+            return getTypeName(processingEnv.getTypeUtils().erasure((TypeMirror) value)) + ".class";
+        } else if (value instanceof VariableElement) {
+            return ((TypeElement) ((VariableElement) value).getEnclosingElement()).getQualifiedName() + "." + ((VariableElement) value).getSimpleName();
+        } else if (value instanceof List && type.getKind() == TypeKind.ARRAY) {
+            builder.append("new ").append(getTypeName(processingEnv.getTypeUtils().erasure(type))).append(" { ");
+            for (AnnotationValue element : (List<? extends AnnotationValue>) value) {
+                if ((literal = getLiteral(((ArrayType) type).getComponentType(), element)) == null) {
+                    return null;
+                }
+                builder.append(literal).append(", ");
+            }
+            return builder.append('}').toString();
+        }
+        
+        return null;
+    }
+    
+    protected String quote(String value, char quote) {
+        StringBuilder builder = new StringBuilder();
+        
+        builder.append(quote);
+        for (char c : value.toCharArray()) {
+            if (c == '\\' || c == '"' || c == '\'') {
+                builder.append('\\').append(c);
+            } else if (c < ' ' || c > '~') {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        
+        return builder.append(quote).toString();
+    }
+    
+    /**
+     * Gets the constructor annotated with {@link javax.inject.Inject} or the no-args constructor.
+     */
+    protected ExecutableElement getConstructor(TypeElement type) {
+        ExecutableElement defaultConstructor = null;
+        
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (isAnnotated(constructor, INJECT)) {
+                return constructor;
+            } else if (constructor.getParameters().isEmpty()) {
+                defaultConstructor = constructor;
+            }
+        }
+        
+        return defaultConstructor;
+    }
+    
+    /**
+     * Gets the classes of the type in inheritance order (base class to subclass) without {@link Object}.
+     */
+    protected List<TypeElement> getHierarchy(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        TypeElement current = type;
+        TypeMirror superclass;
+        
+        while (current != null && !current.getQualifiedName().contentEquals(OBJECT)) {
+            hierarchy.add(current);
+            superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        Collections.reverse(hierarchy);
+        
+        return hierarchy;
+    }
+    
+    /**
+     * Indicates that the method is overridden by a subclass in the hierarchy.
+     */
+    protected boolean isOverridden(ExecutableElement method, TypeElement declaring, List<TypeElement> hierarchy) {
+        for (int i = hierarchy.indexOf(declaring) + 1; i < hierarchy.size(); i++) {
+            for (ExecutableElement candidate : ElementFilter.methodsIn(hierarchy.get(i).getEnclosedElements())) {
+                if (candidate.getSimpleName().equals(method.getSimpleName())
+                        && processingEnv.getElementUtils().overrides(candidate, method, hierarchy.get(i))) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Indicates that the reflective injection would inject a field of this type (a class or a parameterized type).
+     */
+    protected boolean isInjectable(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isInjectable(((ArrayType) type).getComponentType())
+                    && (((ArrayType) type).getComponentType().getKind() != TypeKind.DECLARED || ((DeclaredType) ((ArrayType) type).getComponentType())
+                            .getTypeArguments().isEmpty());
+        }
+        
+        return type.getKind().isPrimitive() || type.getKind() == TypeKind.DECLARED;
+    }
+    
+    /**
+     * Indicates that the member can be accessed from a class of the package.
+     */
+    protected boolean isAccessible(Element member, TypeElement declaring, String pkg) {
+        Set<Modifier> modifiers = member.getModifiers();
+        
+        if (modifiers.contains(Modifier.PRIVATE) || !isNameable(declaring, pkg)) {
+            return false;
+        }
+        
+        return modifiers.contains(Modifier.PUBLIC) || getPackageName(declaring).equals(pkg);
+    }
+    
+    /**
+     * Indicates that the type can be named in a class of the package.
+     */
+    protected boolean isNameable(TypeMirror type, String pkg) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isNameable(((ArrayType) type).getComponentType(), pkg);
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            return isNameable((TypeElement) ((DeclaredType) type).asElement(), pkg);
+        }
+        
+        return type.getKind().isPrimitive();
+    }
+    
+    /**
+     * Indicates that the type (and all its enclosing types) can be named in a class of the package.
+     */
+    protected boolean isNameable(TypeElement type, String pkg) {
+        boolean samePackage = getPackageName(type).equals(pkg);
+        Element current = type;
+        
+        while (current instanceof TypeElement) {
+            if (current.getModifiers().contains(Modifier.PRIVATE) || !samePackage && !current.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        
+        return true;
+    }
+    
+    protected boolean isAnnotated(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Gets the source name of the (erased) type.
+     */
+    protected String getTypeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return getTypeName(((ArrayType) type).getComponentType()) + "[]";
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+        
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+    
+    /**
+     * Gets the simple name of the factory - nested classes are joined by underscores.
+     */
+    protected String getFactoryName(TypeElement type) {
+        String name = getBinaryName(type);
+        String pkg = getPackageName(type);
+        
+        if (pkg.length() > 0) {
+            name = name.substring(pkg.length() + 1);
+        }
+        
+        return name.replace('$', '_') + FACTORY_SUFFIX;
+    }
+    
+    protected String getBinaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+    
+    protected String getPackageName(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+    
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.inject.Singleton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jsr330.processor.TypeFactoryProcessorTest.Car;
+import com.github.jsr330.processor.TypeFactoryProcessorTest.Engine;
+import com.github.jsr330.processor.TypeFactoryProcessorTest.V8Engine;
+import com.github.jsr330.processor.TypeFactoryProcessorTest.Vehicle;
+import com.github.jsr330.scanning.ClassFileReader;
+import com.github.jsr330.scanning.ClassIndex;
+import com.github.jsr330.scanning.ClassMetadata;
+
+public class ClassIndexProcessorTest {
+    
+    Map<String, ClassMetadata> index;
+    
+    @Before
+    public void init() throws Exception {
+        URL url = getClass().getResource("/" + ClassIndex.RESOURCE);
+        
+        assertNotNull(url);
+        index = new TreeMap<String, ClassMetadata>();
+        for (ClassMetadata classMetadata : ClassIndex.read(url.openStream())) {
+            index.put(classMetadata.getName(), classMetadata);
+        }
+    }
+    
+    @Test
+    public void index() {
+        assertTrue(index.containsKey(getClass().getName()));
+        assertTrue(index.containsKey(Car.class.getName()));
+        assertTrue(index.containsKey(TypeFactoryProcessorTest.class.getName() + "_Car" + TypeFactoryProcessor.FACTORY_SUFFIX));
+        
+        assertTrue(index.get(Engine.class.getName()).isInterface());
+        assertNull(index.get(Engine.class.getName()).getSuperName());
+        assertArrayEquals(new String[] { Engine.class.getName() }, index.get(V8Engine.class.getName()).getInterfaceNames());
+        assertTrue(index.get(V8Engine.class.getName()).isAnnotationPresent(Singleton.class));
+        assertTrue(index.get(Vehicle.class.getName()).isAbstract());
+        assertTrue(index.get(Vehicle.class.getName()).hasStaticInjection());
+        assertFalse(index.get(Car.class.getName()).hasStaticInjection());
+        assertEquals(Vehicle.class.getName(), index.get(Car.class.getName()).getSuperName());
+    }
+    
+    @Test
+    public void index_MatchesClassFiles() throws Exception {
+        ClassMetadata expected;
+        ClassMetadata actual;
+        InputStream stream;
+        
+        for (Class<?> type : Arrays.asList(Engine.class, V8Engine.class, Vehicle.class, Car.class, TypeFactoryProcessorTest.class)) {
+            stream = type.getResourceAsStream("/" + type.getName().replace('.', '/') + ".class");
+            try {
+                expected = ClassFileReader.read(stream);
+            } finally {
+                stream.close();
+            }
+            actual = index.get(type.getName());
+            
+            assertEquals(expected.getSuperName(), actual.getSuperName());
+            assertArrayEquals(expected.getInterfaceNames(), actual.getInterfaceNames());
+            assertEquals(new TreeSet<String>(Arrays.asList(expected.getAnnotations())), new TreeSet<String>(Arrays.asList(actual.getAnnotations())));
+            assertEquals(expected.isInterface(), actual.isInterface());
+            assertEquals(expected.isAbstract(), actual.isAbstract());
+            assertEquals(expected.hasStaticInjection(), actual.hasStaticInjection());
+        }
+    }
+    
+}
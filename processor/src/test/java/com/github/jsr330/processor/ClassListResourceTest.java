@@ -0,0 +1,136 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jsr330.scanning.ClassIndex;
+import com.github.jsr330.scanning.TypeFactoryRegistry;
+
+public class ClassListResourceTest {
+    
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    Path sources;
+    Path classes;
+    
+    @Before
+    public void init() throws IOException {
+        sources = Files.createTempDirectory("sources");
+        classes = Files.createTempDirectory("classes");
+        Files.write(sources.resolve("A.java"), "public class A { @javax.inject.Inject public A() {} }".getBytes(UTF_8));
+        Files.write(sources.resolve("B.java"), "public class B extends A {}".getBytes(UTF_8));
+    }
+    
+    @After
+    public void cleanup() throws IOException {
+        delete(sources);
+        delete(classes);
+    }
+    
+    @Test
+    public void write_KeepsClassesNotCompiled() throws IOException {
+        compile("A.java", "B.java");
+        assertEquals(Arrays.asList("A", "B"), readNames(TypeFactoryRegistry.RESOURCE));
+        
+        compile("B.java");
+        assertEquals(Arrays.asList("A", "B"), readNames(TypeFactoryRegistry.RESOURCE));
+    }
+    
+    @Test
+    public void write_KeepsIndexedClassesNotCompiled() throws IOException {
+        List<String> names = Arrays.asList("A", "A" + TypeFactoryProcessor.FACTORY_SUFFIX, "B");
+        
+        compile("A.java", "B.java");
+        assertEquals(names, readNames(ClassIndex.RESOURCE));
+        
+        compile("B.java");
+        assertEquals(names, readNames(ClassIndex.RESOURCE));
+    }
+    
+    @Test
+    public void write_DropsDeletedClasses() throws IOException {
+        compile("A.java", "B.java");
+        Files.write(sources.resolve("B.java"), "public class B {}".getBytes(UTF_8));
+        Files.delete(classes.resolve("A.class"));
+        
+        compile("B.java");
+        assertEquals(Arrays.asList("B"), readNames(TypeFactoryRegistry.RESOURCE));
+    }
+    
+    void compile(String... files) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<String>(Arrays.asList("-processor", TypeFactoryProcessor.class.getName() + ","
+                + ClassIndexProcessor.class.getName(), "-classpath", System.getProperty("java.class.path") + File.pathSeparator + classes,
+                "-d", classes.toString(), "-s", classes.toString()));
+        
+        for (String file : files) {
+            arguments.add(sources.resolve(file).toString());
+        }
+        assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])));
+    }
+    
+    List<String> readNames(String resource) throws IOException {
+        List<String> names = new ArrayList<String>();
+        
+        for (String line : Files.readAllLines(classes.resolve(resource), UTF_8)) {
+            if (!line.startsWith("#")) {
+                names.add(line.split(" ")[0]);
+            }
+        }
+        
+        return names;
+    }
+    
+    void delete(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exception) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+            
+        });
+    }
+    
+}
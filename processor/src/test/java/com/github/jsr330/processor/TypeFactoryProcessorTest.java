@@ -0,0 +1,207 @@
+/**
+ * Copyright 2012 the contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.github.jsr330.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jsr330.Injector;
+import com.github.jsr330.instance.IterativeClassInjector;
+import com.github.jsr330.scanning.TypeFactoryRegistry;
+import com.github.jsr330.spi.TypeFactory;
+
+public class TypeFactoryProcessorTest {
+    
+    public interface Engine {
+    }
+    
+    @Singleton
+    public static class V8Engine implements Engine {
+        
+        @Inject
+        public V8Engine() {
+        }
+        
+    }
+    
+    public static class Seat {
+    }
+    
+    public static class DriversSeat extends Seat {
+    }
+    
+    public abstract static class Vehicle {
+        
+        static Engine spareEngine;
+        
+        @Inject
+        Seat seat;
+        boolean overriddenInjected;
+        
+        @Inject
+        static void setSpareEngine(Engine engine) {
+            spareEngine = engine;
+        }
+        
+        @Inject
+        void overridden() {
+            overriddenInjected = true;
+        }
+        
+    }
+    
+    public static class Car extends Vehicle {
+        
+        final Engine engine;
+        @Inject
+        @Named("driversSeat")
+        Seat driversSeat;
+        @Inject
+        Provider<Seat> seatProvider;
+        boolean overridingInjected;
+        
+        @Inject
+        Car(Engine engine) {
+            this.engine = engine;
+        }
+        
+        @Inject
+        @Override
+        void overridden() {
+            overridingInjected = true;
+        }
+        
+    }
+    
+    public static class PrivateCar {
+        
+        @Inject
+        private Seat seat;
+        
+    }
+    
+    TypeFactoryRegistry registry;
+    
+    @Before
+    public void before() {
+        registry = TypeFactoryRegistry.load(Thread.currentThread().getContextClassLoader());
+    }
+    
+    @Test
+    public void registry_ContainsProcessedClasses() {
+        assertNotNull(registry);
+        assertTrue(registry.getClasses().containsKey(Car.class.getName()));
+        assertTrue(registry.getClasses().containsKey(Engine.class.getName()));
+        assertTrue(Arrays.asList(registry.getInheritanceTree().get(Engine.class.getName())).contains(V8Engine.class));
+        assertTrue(Arrays.asList(registry.getInheritanceTree().get(Vehicle.class.getName())).contains(Car.class));
+        assertFalse(Arrays.asList(registry.getInheritanceTree().get(Vehicle.class.getName())).contains(Vehicle.class));
+    }
+    
+    @Test
+    public void registry_ContainsFactories() {
+        TypeFactory<?> factory = registry.getFactories().get(Car.class.getName());
+        
+        assertNotNull(factory);
+        assertEquals("TypeFactoryProcessorTest_Car" + TypeFactoryProcessor.FACTORY_SUFFIX, factory.getClass().getSimpleName());
+        assertSame(Car.class, factory.getType());
+        assertFalse(factory.isSingleton());
+        assertTrue(registry.getFactories().get(V8Engine.class.getName()).isSingleton());
+        assertNull(registry.getFactories().get(Vehicle.class.getName()));
+        assertNull(registry.getFactories().get(Engine.class.getName()));
+        // nothing of a seat is injected
+        assertNull(registry.getFactories().get(Seat.class.getName()));
+        assertNull(registry.getFactories().get(PrivateCar.class.getName()));
+    }
+    
+    @Test
+    public void registry_IsComplete() throws Exception {
+        URLClassLoader loader = new URLClassLoader(new URL[] { getClass().getProtectionDomain().getCodeSource().getLocation() }, null);
+        
+        try {
+            assertTrue(TypeFactoryRegistry.load(loader).isComplete(loader));
+            // the jars of the test class path weren't built with the processor
+            assertFalse(registry.isComplete(Thread.currentThread().getContextClassLoader()));
+        } finally {
+            loader.close();
+        }
+    }
+    
+    @Test
+    public void registry_IsIncompleteWithRootWithoutMetaInf() throws Exception {
+        Path directory = Files.createTempDirectory("classes");
+        URLClassLoader loader = new URLClassLoader(new URL[] { getClass().getProtectionDomain().getCodeSource().getLocation(),
+                directory.toUri().toURL() }, null);
+        
+        try {
+            assertFalse(TypeFactoryRegistry.load(loader).isComplete(loader));
+        } finally {
+            loader.close();
+            Files.delete(directory);
+        }
+    }
+    
+    @Test
+    public void injector_UsesFactories() {
+        Injector injector = new Injector();
+        Car car = injector.getInstance(Car.class);
+        
+        assertNotNull(car);
+        assertTrue(car.engine instanceof V8Engine);
+        assertSame(car.engine, injector.getInstance(Engine.class));
+        assertSame(car.engine, Vehicle.spareEngine);
+        assertSame(Seat.class, car.seat.getClass());
+        assertSame(DriversSeat.class, car.driversSeat.getClass());
+        assertNotNull(car.seatProvider.get());
+        assertTrue(car.overridingInjected);
+        assertFalse(car.overriddenInjected);
+    }
+    
+    @Test
+    public void iterativeInjector_UsesFactories() {
+        Injector injector = new Injector(Thread.currentThread().getContextClassLoader(), null, null, new IterativeClassInjector());
+        Car car = injector.getInstance(Car.class);
+        
+        assertNotNull(car);
+        assertTrue(car.engine instanceof V8Engine);
+        assertSame(car.engine, injector.getInstance(Engine.class));
+        assertSame(DriversSeat.class, car.driversSeat.getClass());
+        assertTrue(car.overridingInjected);
+    }
+    
+    @Test
+    public void injector_FallsBackToReflection() {
+        assertNotNull(new Injector().getInstance(PrivateCar.class).seat);
+    }
+    
+}